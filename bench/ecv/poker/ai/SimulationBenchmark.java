@@ -0,0 +1,154 @@
+package ecv.poker.ai;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ecv.poker.ai.EquitySimulator.Sampling;
+import ecv.poker.card.Card;
+import ecv.poker.card.CardSet;
+
+/**
+ * Times the bot's equity work on a fixed flop, turn and river dealt from a
+ * seeded Random.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulationBenchmark {
+
+	static final long SEED = 52;
+
+	private Random random;
+	private List<Card> holeCards;
+	private List<Card> flop, turn, river;
+	private SimulationKernel kernel;
+	private ExpectimaxSearch search;
+
+	/**
+	 * A kernel dealing to a number of opponents on the same flop
+	 */
+	@State(Scope.Thread)
+	public static class Multiway {
+		@Param({ "1", "3", "6" })
+		public int opponents;
+
+		private SimulationKernel kernel;
+
+		@Setup
+		public void setup() {
+			List<Card> cards = shuffled(new Random(SEED));
+			kernel = new SimulationKernel(CardSet.of(cards.subList(0, 2)),
+					CardSet.of(cards.subList(2, 5)), opponents, null, null,
+					new Random(SEED));
+		}
+	}
+
+	@Setup
+	public void setup() {
+		random = new Random(SEED);
+		List<Card> cards = shuffled(random);
+
+		holeCards = new ArrayList<Card>(cards.subList(0, 2));
+		flop = new ArrayList<Card>(cards.subList(2, 5));
+		turn = new ArrayList<Card>(cards.subList(2, 6));
+		river = new ArrayList<Card>(cards.subList(2, 7));
+		kernel = new SimulationKernel(CardSet.of(holeCards), CardSet.of(flop),
+				1, null, null, new Random(SEED));
+		search = new ExpectimaxSearch(CardSet.of(holeCards),
+				CardSet.of(river), null, 500, random, Long.MAX_VALUE);
+	}
+
+	private static List<Card> shuffled(Random random) {
+		List<Card> cards = new ArrayList<Card>(52);
+		for (int i = 0; i < 52; i++)
+			cards.add(Card.get(i));
+		Collections.shuffle(cards, random);
+		return cards;
+	}
+
+	/**
+	 * One deal played out by the simulation kernel, from the flop
+	 */
+	@Benchmark
+	public long deal() {
+		kernel.deal();
+		return kernel.getWins();
+	}
+
+	/**
+	 * The same against several opponents, which should cost little more per
+	 * opponent than the first
+	 */
+	@Benchmark
+	public long dealMultiway(Multiway multiway) {
+		multiway.kernel.deal();
+		return multiway.kernel.getWins();
+	}
+
+	/**
+	 * The bot's default number of simulations from the flop, on every
+	 * processor
+	 */
+	@Benchmark
+	public Equity simulateFlop() throws InterruptedException {
+		return EquitySimulator.simulate(holeCards, flop, 500, random);
+	}
+
+	/**
+	 * The same number of deals, stratified by the opponent's hand
+	 */
+	@Benchmark
+	public Equity simulateFlopStratified() throws InterruptedException {
+		return EquitySimulator.simulate(holeCards, flop, 1, null,
+				Sampling.STRATIFIED, null, 500, null, random, null);
+	}
+
+	/**
+	 * Working out the opponent's hands for a river decision, then searching
+	 * it
+	 */
+	@Benchmark
+	public ExpectimaxSearch.Choice searchRiver() {
+		return new ExpectimaxSearch(CardSet.of(holeCards), CardSet.of(river),
+				null, 500, random, Long.MAX_VALUE).search(100, 0, 1000, 1000,
+				10, false, ExpectimaxSearch.DEFAULT_SIZES);
+	}
+
+	/**
+	 * Scoring every candidate against hands already worked out, facing a
+	 * bet
+	 */
+	@Benchmark
+	public ExpectimaxSearch.Choice searchCandidates() {
+		return search.search(200, 100, 1000, 900, 10, false,
+				ExpectimaxSearch.DEFAULT_SIZES);
+	}
+
+	@Benchmark
+	public Equity enumerateTurn() {
+		return EquityCalculator.enumerate(holeCards, turn);
+	}
+
+	@Benchmark
+	public Equity enumerateRiver() {
+		return EquityCalculator.enumerate(holeCards, river);
+	}
+}
@@ -0,0 +1,81 @@
+package ecv.poker.card;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fails if the {@link TableEvaluator} scores a hand differently from the
+ * {@link Evaluator}. Every 5 card hand is checked, then hands of 2 to 9
+ * cards dealt from a seeded Random, whole and split into hole and community
+ * cards. Hands the tables can't hold, under 5 or over 7 cards, must still
+ * come out the same.
+ *
+ * Prints the hands checked and the first few that disagree, and exits with
+ * status 1 if any do.
+ */
+public class AgreementCheck {
+
+	static final long SEED = 52;
+	static final int HANDS = 100000;
+	static final int FEWEST_CARDS = 2;
+	static final int MOST_CARDS = 9;
+	// disagreements to print before only counting them
+	static final int SHOWN = 10;
+
+	private static int checked, failed;
+
+	public static void main(String[] args) {
+		List<Card> deck = new ArrayList<Card>(52);
+		for (int i = 0; i < 52; i++)
+			deck.add(Card.get(i));
+
+		List<Card> hand = new ArrayList<Card>(5);
+		for (int a = 0; a < 52; a++)
+			for (int b = a + 1; b < 52; b++)
+				for (int c = b + 1; c < 52; c++)
+					for (int d = c + 1; d < 52; d++)
+						for (int e = d + 1; e < 52; e++) {
+							hand.clear();
+							hand.add(deck.get(a));
+							hand.add(deck.get(b));
+							hand.add(deck.get(c));
+							hand.add(deck.get(d));
+							hand.add(deck.get(e));
+							check(hand, Evaluator.evaluate(hand),
+									TableEvaluator.evaluate(hand));
+						}
+		System.out.println(checked + " five card hands");
+
+		Random random = new Random(SEED);
+		for (int cards = FEWEST_CARDS; cards <= MOST_CARDS; cards++) {
+			int before = checked;
+			for (int h = 0; h < HANDS; h++) {
+				Collections.shuffle(deck, random);
+				List<Card> cardList = deck.subList(0, cards);
+				check(cardList, Evaluator.evaluate(cardList), TableEvaluator
+						.evaluate(cardList));
+				// up to 2 hole cards, the rest community
+				int hole = 1 + random.nextInt(Math.min(2, cards));
+				List<Card> holeCards = deck.subList(0, hole);
+				List<Card> community = deck.subList(hole, cards);
+				check(cardList, Evaluator.evaluate(holeCards, community),
+						TableEvaluator.evaluate(holeCards, community));
+			}
+			System.out.println((checked - before) + " hands of " + cards
+					+ " cards");
+		}
+
+		System.out.println(failed + " of " + checked + " disagree");
+		if (failed > 0)
+			System.exit(1);
+	}
+
+	private static void check(List<Card> cards, int expected, int actual) {
+		checked++;
+		if (expected != actual && failed++ < SHOWN)
+			System.out.printf("%s: Evaluator %x, TableEvaluator %x%n", cards,
+					expected, actual);
+	}
+}
@@ -0,0 +1,139 @@
+package ecv.poker.card;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Fails if any of the evaluators allocates once warmed up. Each one scores a
+ * corpus of hands, dealt from a seeded Random, until the JIT has compiled it,
+ * then the bytes the thread allocates over another pass must be 0. Needs a
+ * HotSpot JVM, which counts the bytes each thread allocates.
+ *
+ * Prints the bytes each evaluator allocated, and exits with status 1 if any
+ * of them is not 0.
+ */
+public class AllocationCheck {
+
+	static final int HANDS = 1024;
+	static final long SEED = 52;
+	static final int WARMUP_PASSES = 200;
+	static final int MEASURED_PASSES = 10;
+
+	/** One call of an evaluator, on the i-th hand of the corpus */
+	private interface Call {
+		int evaluate(int i);
+	}
+
+	private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+
+	public static void main(String[] args) {
+		Random random = new Random(SEED);
+		final List<List<Card>> seven = new ArrayList<List<Card>>(HANDS);
+		final List<List<Card>> holeCards = new ArrayList<List<Card>>(HANDS);
+		final List<List<Card>> community = new ArrayList<List<Card>>(HANDS);
+		final long[] sets = new long[HANDS];
+		final Board[] boards = new Board[HANDS];
+		final int[] first = new int[HANDS], second = new int[HANDS];
+		List<Card> deck = new ArrayList<Card>(52);
+		for (int i = 0; i < 52; i++)
+			deck.add(Card.get(i));
+		for (int h = 0; h < HANDS; h++) {
+			Collections.shuffle(deck, random);
+			seven.add(new ArrayList<Card>(deck.subList(0, 7)));
+			holeCards.add(new ArrayList<Card>(deck.subList(0, 2)));
+			community.add(new ArrayList<Card>(deck.subList(2, 7)));
+			sets[h] = CardSet.of(deck.subList(0, 7));
+			boards[h] = Board.of(deck.subList(2, 7));
+			first[h] = deck.get(0).getIndex();
+			second[h] = deck.get(1).getIndex();
+		}
+
+		boolean failed = false;
+		failed |= check("Evaluator.evaluate(List)", new Call() {
+			@Override
+			public int evaluate(int i) {
+				return Evaluator.evaluate(seven.get(i));
+			}
+		});
+		failed |= check("Evaluator.evaluate(List, List)", new Call() {
+			@Override
+			public int evaluate(int i) {
+				return Evaluator.evaluate(holeCards.get(i), community.get(i));
+			}
+		});
+		failed |= check("Evaluator.evaluate(long)", new Call() {
+			@Override
+			public int evaluate(int i) {
+				return Evaluator.evaluate(sets[i]);
+			}
+		});
+		failed |= check("TableEvaluator.evaluate(List)", new Call() {
+			@Override
+			public int evaluate(int i) {
+				return TableEvaluator.evaluate(seven.get(i));
+			}
+		});
+		failed |= check("TableEvaluator.evaluate(List, List)", new Call() {
+			@Override
+			public int evaluate(int i) {
+				return TableEvaluator.evaluate(holeCards.get(i),
+						community.get(i));
+			}
+		});
+		failed |= check("Board.evaluate(List)", new Call() {
+			@Override
+			public int evaluate(int i) {
+				return boards[i].evaluate(holeCards.get(i));
+			}
+		});
+		failed |= check("Board.evaluate(Card, Card)", new Call() {
+			@Override
+			public int evaluate(int i) {
+				return boards[i].evaluate(holeCards.get(i).get(0), holeCards
+						.get(i).get(1));
+			}
+		});
+		failed |= check("Board.evaluate(int, int)", new Call() {
+			@Override
+			public int evaluate(int i) {
+				return boards[i].evaluate(first[i], second[i]);
+			}
+		});
+		if (failed)
+			System.exit(1);
+	}
+
+	/**
+	 * @return true if the call allocated
+	 */
+	private static boolean check(String name, Call call) {
+		long sum = 0;
+		for (int pass = 0; pass < WARMUP_PASSES; pass++)
+			sum += pass(call);
+		long id = Thread.currentThread().getId();
+		// reading the counter may allocate itself, which isn't counted
+		long start = THREADS.getThreadAllocatedBytes(id);
+		long overhead = THREADS.getThreadAllocatedBytes(id) - start;
+		start = THREADS.getThreadAllocatedBytes(id);
+		for (int pass = 0; pass < MEASURED_PASSES; pass++)
+			sum += pass(call);
+		long bytes = THREADS.getThreadAllocatedBytes(id) - start - overhead;
+		long calls = (long) MEASURED_PASSES * HANDS;
+		System.out.printf("%-36s %d bytes over %d calls (%d)%n", name, bytes,
+				calls, sum);
+		return bytes != 0;
+	}
+
+	private static long pass(Call call) {
+		long sum = 0;
+		for (int i = 0; i < HANDS; i++)
+			sum += call.evaluate(i);
+		return sum;
+	}
+}
@@ -0,0 +1,206 @@
+package ecv.poker.card;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Times the evaluators over fixed corpora of hands, dealt from a seeded
+ * Random so every run scores the same hands. Each invocation scores the whole
+ * corpus, and results are reported per hand.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EvaluatorBenchmark {
+
+	static final int HANDS = 1024;
+	static final long SEED = 52;
+
+	private List<List<Card>> five, six, seven;
+	private List<List<Card>> holeCards, community;
+	// 5 cards in descending order, as the category helpers expect them
+	private List<List<Card>> sortedFive;
+	private long[] sevenSets;
+	private Board[] boards;
+	private int[] first, second;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(SEED);
+		List<Card> deck = new ArrayList<Card>(52);
+		for (int i = 0; i < 52; i++)
+			deck.add(Card.get(i));
+
+		five = new ArrayList<List<Card>>(HANDS);
+		six = new ArrayList<List<Card>>(HANDS);
+		seven = new ArrayList<List<Card>>(HANDS);
+		holeCards = new ArrayList<List<Card>>(HANDS);
+		community = new ArrayList<List<Card>>(HANDS);
+		sortedFive = new ArrayList<List<Card>>(HANDS);
+		sevenSets = new long[HANDS];
+		boards = new Board[HANDS];
+		first = new int[HANDS];
+		second = new int[HANDS];
+		for (int i = 0; i < HANDS; i++) {
+			Collections.shuffle(deck, random);
+			five.add(new ArrayList<Card>(deck.subList(0, 5)));
+			six.add(new ArrayList<Card>(deck.subList(0, 6)));
+			seven.add(new ArrayList<Card>(deck.subList(0, 7)));
+			holeCards.add(new ArrayList<Card>(deck.subList(0, 2)));
+			community.add(new ArrayList<Card>(deck.subList(2, 7)));
+
+			List<Card> sorted = new ArrayList<Card>(deck.subList(0, 5));
+			Collections.sort(sorted);
+			Collections.reverse(sorted);
+			sortedFive.add(sorted);
+
+			sevenSets[i] = CardSet.of(deck.subList(0, 7));
+			boards[i] = Board.of(deck.subList(2, 7));
+			first[i] = deck.get(0).getIndex();
+			second[i] = deck.get(1).getIndex();
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void evaluate5(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++)
+			bh.consume(Evaluator.evaluate(five.get(i)));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void evaluate6(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++)
+			bh.consume(Evaluator.evaluate(six.get(i)));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void evaluate7(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++)
+			bh.consume(Evaluator.evaluate(seven.get(i)));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void evaluateHoleAndCommunity(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++)
+			bh.consume(Evaluator.evaluate(holeCards.get(i), community.get(i)));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void evaluateCardSet(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++)
+			bh.consume(Evaluator.evaluate(sevenSets[i]));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void tableEvaluate7(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++)
+			bh.consume(TableEvaluator.evaluate(seven.get(i)));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void tableEvaluateHoleAndCommunity(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++)
+			bh.consume(TableEvaluator.evaluate(holeCards.get(i),
+					community.get(i)));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void boardEvaluate(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++)
+			bh.consume(boards[i].evaluate(first[i], second[i]));
+	}
+
+	/*
+	 * Category helpers, each on sorted 5 card hands
+	 */
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void getStraightFlush(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++)
+			bh.consume(Evaluator.getStraightFlush(sortedFive.get(i)));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void getQuads(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++)
+			bh.consume(Evaluator.getQuads(sortedFive.get(i)));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void getFullHouse(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++)
+			bh.consume(Evaluator.getFullHouse(sortedFive.get(i)));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void getFlush(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++)
+			bh.consume(Evaluator.getFlush(sortedFive.get(i)));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void getStraight(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++)
+			bh.consume(Evaluator.getStraight(sortedFive.get(i)));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void getTrips(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++)
+			bh.consume(Evaluator.getTrips(sortedFive.get(i)));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void getTwoPair(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++)
+			bh.consume(Evaluator.getTwoPair(sortedFive.get(i)));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void getPair(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++)
+			bh.consume(Evaluator.getPair(sortedFive.get(i)));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(HANDS)
+	public void getHighCard(Blackhole bh) {
+		for (int i = 0; i < HANDS; i++)
+			bh.consume(Evaluator.getHighCard(sortedFive.get(i)));
+	}
+}
@@ -0,0 +1,123 @@
+package ecv.poker.game;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ecv.poker.player.Player;
+
+/**
+ * Times whole hands against the bot with no view, the user calling down
+ * every bet. The bot's moves chosen on other threads are run on the
+ * benchmark's thread, which plays the game.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark implements GameConfig, GameListener {
+
+	@Param({ "100", "500" })
+	public int simulations;
+
+	private Game game;
+	private final BlockingQueue<Runnable> moves = new LinkedBlockingQueue<Runnable>();
+	private final Executor gameThread = new Executor() {
+		@Override
+		public void execute(Runnable task) {
+			moves.add(task);
+		}
+	};
+
+	@Setup
+	public void setup() {
+		game = new Game(this, this);
+	}
+
+	/**
+	 * One hand from the deal to the showdown or a fold
+	 */
+	@Benchmark
+	public int playHand() throws InterruptedException {
+		if (game.getUser().getChips() <= 0 || game.getBot().getChips() <= 0)
+			game.reset();
+		else
+			game.setupHand();
+		while (!game.isHandOver()) {
+			if (game.isMyTurn()) {
+				if (game.getCurBet() == 0)
+					game.getUser().check();
+				else
+					game.getUser().call();
+				game.setMyTurn(false);
+				game.makeNextMove();
+			} else {
+				moves.take().run();
+			}
+		}
+		return game.getPot();
+	}
+
+	@Override
+	public int getInt(String key, int defValue) {
+		return key.equals("simulations") ? simulations : defValue;
+	}
+
+	@Override
+	public String getUserName() {
+		return "user";
+	}
+
+	@Override
+	public String getBotName() {
+		return "bot";
+	}
+
+	@Override
+	public InputStream openAsset(String name) throws IOException {
+		throw new FileNotFoundException(name);
+	}
+
+	@Override
+	public Executor getGameThread() {
+		return gameThread;
+	}
+
+	@Override
+	public void handStarted() {
+	}
+
+	@Override
+	public void cardsDealt() {
+	}
+
+	@Override
+	public void playerActed(Player player, Game.Action action, int amount) {
+	}
+
+	@Override
+	public void potAwarded(Player winner, int pot) {
+	}
+
+	@Override
+	public void gameOver() {
+	}
+}
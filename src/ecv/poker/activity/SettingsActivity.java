@@ -7,6 +7,8 @@ import android.os.Bundle;
 import android.widget.CheckBox;
 import android.widget.EditText;
 import ecv.poker.R;
+import ecv.poker.ai.EquityCalculator;
+import ecv.poker.player.AIPlayer;
 
 /**
  * All SharedPreferences are saved from this activity.
@@ -21,6 +23,8 @@ public class SettingsActivity extends Activity {
 	private SharedPreferences settings;
 	private CheckBox audioCheck;
 	private EditText simsText;
+	private EditText exactText;
+	private EditText thinkText;
 	private EditText anteText;
 	private EditText chipsText;
 	private EditText bluffText;
@@ -40,6 +44,16 @@ public class SettingsActivity extends Activity {
 		simsText = (EditText) findViewById(R.id.simulations);
 		simsText.setText(numSims+"");
 		
+		int exactThreshold = settings.getInt("exact_threshold",
+				EquityCalculator.DEFAULT_EXACT_THRESHOLD);
+		exactText = (EditText) findViewById(R.id.exact_threshold);
+		exactText.setText(exactThreshold+"");
+		
+		int thinkTime = settings.getInt("think_time",
+				AIPlayer.DEFAULT_THINK_TIME);
+		thinkText = (EditText) findViewById(R.id.think_time);
+		thinkText.setText(thinkTime+"");
+		
 		int chipStack = settings.getInt("chips", 1000);
 		chipsText = (EditText) findViewById(R.id.chipStack);
 		chipsText.setText(chipStack+"");
@@ -60,6 +74,8 @@ public class SettingsActivity extends Activity {
 		editor.putBoolean(getString(R.string.enable_sound),
 				audioCheck.isChecked());
 		editor.putInt("simulations", Integer.parseInt(simsText.getText().toString()));
+		editor.putInt("exact_threshold", Integer.parseInt(exactText.getText().toString()));
+		editor.putInt("think_time", Integer.parseInt(thinkText.getText().toString()));
 		editor.putInt("chips", Integer.parseInt(chipsText.getText().toString()));
 		editor.putInt("ante", Integer.parseInt(anteText.getText().toString()));
 		editor.putInt("bluff", Integer.parseInt(bluffText.getText().toString()));
@@ -0,0 +1,206 @@
+package ecv.poker.ai;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the bots' thinking, one task at a time on a thread that is kept for
+ * the life of the process, rather than starting a thread for every street.
+ * The tasks themselves hand their deals to the {@link EquitySimulator}'s
+ * threads, so one thread here is enough.
+ *
+ * The queue is bounded, since a bot cancels its last task before submitting
+ * another, and a task that is cancelled is removed from the queue at once.
+ * How long tasks wait and run is kept for logging.
+ */
+public class AIExecutor {
+
+	/** Most tasks waiting to run */
+	public static final int QUEUE_CAPACITY = 8;
+
+	private static final AIExecutor INSTANCE = new AIExecutor();
+
+	private final ThreadPoolExecutor executor;
+	// runs deadlines, apart from the tasks so they go off on time
+	private final ScheduledThreadPoolExecutor timer;
+	private final AtomicLong submitted = new AtomicLong();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong cancelled = new AtomicLong();
+	// nanoseconds over all completed tasks
+	private final AtomicLong waitTime = new AtomicLong();
+	private final AtomicLong runTime = new AtomicLong();
+	private final AtomicLong maxRunTime = new AtomicLong();
+
+	private AIExecutor() {
+		executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY),
+				new DaemonFactory("AIExecutor")) {
+			@Override
+			protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+				return new TimedTask<T>(callable);
+			}
+
+			@Override
+			protected <T> RunnableFuture<T> newTaskFor(Runnable runnable,
+					T value) {
+				return new TimedTask<T>(runnable, value);
+			}
+		};
+		timer = new ScheduledThreadPoolExecutor(1, new DaemonFactory(
+				"AIExecutor-timer"));
+	}
+
+	public static AIExecutor getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @param task
+	 *            should stop soon after its thread is interrupted
+	 * @return for waiting on or cancelling the task
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 *             if {@value #QUEUE_CAPACITY} tasks are already waiting
+	 */
+	public Future<?> submit(Runnable task) {
+		submitted.incrementAndGet();
+		return executor.submit(task);
+	}
+
+	/**
+	 * @see #submit(Runnable)
+	 */
+	public <T> Future<T> submit(Callable<T> task) {
+		submitted.incrementAndGet();
+		return executor.submit(task);
+	}
+
+	/**
+	 * Interrupt the task if it is running, or take it off the queue if it
+	 * hasn't started
+	 *
+	 * @param task
+	 *            returned by submit, or null
+	 */
+	public void cancel(Future<?> task) {
+		if (task != null && task.cancel(true)) {
+			cancelled.incrementAndGet();
+			executor.purge();
+		}
+	}
+
+	/**
+	 * Run a short task, such as acting on a deadline, after a delay
+	 *
+	 * @return for cancelling the task before it runs
+	 */
+	public Future<?> schedule(Runnable task, long delay, TimeUnit unit) {
+		return timer.schedule(task, delay, unit);
+	}
+
+	/**
+	 * @return number of tasks waiting to run
+	 */
+	public int getQueueDepth() {
+		return executor.getQueue().size();
+	}
+
+	public long getSubmittedCount() {
+		return submitted.get();
+	}
+
+	/**
+	 * @return number of tasks that ran to the end without being cancelled
+	 */
+	public long getCompletedCount() {
+		return completed.get();
+	}
+
+	public long getCancelledCount() {
+		return cancelled.get();
+	}
+
+	/**
+	 * @return mean time completed tasks spent in the queue, in milliseconds
+	 */
+	public float getMeanWaitMillis() {
+		long n = completed.get();
+		return n == 0 ? 0 : waitTime.get() / 1e6f / n;
+	}
+
+	/**
+	 * @return mean time completed tasks took to run, in milliseconds
+	 */
+	public float getMeanRunMillis() {
+		long n = completed.get();
+		return n == 0 ? 0 : runTime.get() / 1e6f / n;
+	}
+
+	public float getMaxRunMillis() {
+		return maxRunTime.get() / 1e6f;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("AIExecutor[queued=%d, submitted=%d, "
+				+ "completed=%d, cancelled=%d, wait=%.2fms, run=%.2fms, "
+				+ "max run=%.2fms]", getQueueDepth(), getSubmittedCount(),
+				getCompletedCount(), getCancelledCount(), getMeanWaitMillis(),
+				getMeanRunMillis(), getMaxRunMillis());
+	}
+
+	// daemon threads, so an idle bot doesn't keep the process alive
+	private static class DaemonFactory implements ThreadFactory {
+		private final String name;
+
+		DaemonFactory(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, name);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	/**
+	 * Times the task from when it is submitted to when it starts, and from
+	 * then until it finishes
+	 */
+	private class TimedTask<T> extends FutureTask<T> {
+		private final long submitTime = System.nanoTime();
+
+		TimedTask(Callable<T> callable) {
+			super(callable);
+		}
+
+		TimedTask(Runnable runnable, T value) {
+			super(runnable, value);
+		}
+
+		@Override
+		public void run() {
+			long start = System.nanoTime();
+			super.run();
+			if (isCancelled())
+				return;
+			long end = System.nanoTime();
+			completed.incrementAndGet();
+			waitTime.addAndGet(start - submitTime);
+			runTime.addAndGet(end - start);
+			long max;
+			while ((max = maxRunTime.get()) < end - start
+					&& !maxRunTime.compareAndSet(max, end - start))
+				;
+		}
+	}
+}
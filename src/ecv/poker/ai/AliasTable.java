@@ -0,0 +1,77 @@
+package ecv.poker.ai;
+
+import java.util.Random;
+
+/**
+ * Draws from a fixed set of weighted outcomes in constant time, by Vose's
+ * alias method: every slot holds an outcome and an alias, and a slot picked
+ * uniformly at random gives its outcome with probability prob, else its
+ * alias.
+ *
+ * Tables are immutable once built, so one can be shared by every thread
+ * drawing from it with its own Random.
+ */
+class AliasTable {
+
+	private final int[] outcomes;
+	private final float[] prob;
+	private final int[] alias;
+
+	/**
+	 * @param outcomes
+	 *            what each weight is for
+	 * @param weights
+	 *            positive weights, not necessarily summing to 1
+	 * @param n
+	 *            number of outcomes used from the arrays
+	 */
+	AliasTable(int[] outcomes, float[] weights, int n) {
+		this.outcomes = new int[n];
+		System.arraycopy(outcomes, 0, this.outcomes, 0, n);
+		prob = new float[n];
+		alias = new int[n];
+
+		double total = 0;
+		for (int i = 0; i < n; i++)
+			total += weights[i];
+		// scaled so the mean is 1, split into slots under and over it
+		double[] scaled = new double[n];
+		int[] small = new int[n], large = new int[n];
+		int smalls = 0, larges = 0;
+		for (int i = 0; i < n; i++) {
+			scaled[i] = weights[i] * n / total;
+			if (scaled[i] < 1)
+				small[smalls++] = i;
+			else
+				large[larges++] = i;
+		}
+		// fill each small slot up to 1 from a large one
+		while (smalls > 0 && larges > 0) {
+			int s = small[--smalls], l = large[--larges];
+			prob[s] = (float) scaled[s];
+			alias[s] = l;
+			scaled[l] -= 1 - scaled[s];
+			if (scaled[l] < 1)
+				small[smalls++] = l;
+			else
+				large[larges++] = l;
+		}
+		// what is left is 1 up to rounding
+		while (larges > 0)
+			prob[large[--larges]] = 1;
+		while (smalls > 0)
+			prob[small[--smalls]] = 1;
+	}
+
+	/**
+	 * @return one of the outcomes, in proportion to its weight
+	 */
+	int sample(Random random) {
+		int i = random.nextInt(prob.length);
+		return random.nextFloat() < prob[i] ? outcomes[i] : outcomes[alias[i]];
+	}
+
+	int size() {
+		return prob.length;
+	}
+}
@@ -0,0 +1,301 @@
+package ecv.poker.ai;
+
+/**
+ * Every way the betting of a heads up hand can go, under the bot's bet sizes.
+ * With nothing to call a player checks or bets half the pot, at least the
+ * ante. Facing a bet they fold, call, or raise by the amount to call, until
+ * the street has seen {@code maxRaises} raises. A street ends on a call or
+ * two checks, and the player who didn't end it acts first on the next.
+ * Stacks are taken to be deep enough never to run out.
+ *
+ * Amounts are in antes, so the tree is the same for any ante. Player 0 acts
+ * first before the flop.
+ *
+ * Nodes are numbered from 0, the root, and stored in flat arrays. Each
+ * decision node owns one entry per action for every card bucket, starting at
+ * {@link #getOffset(int, int)}, which is how strategies and regrets are laid
+ * out in arrays of {@link #getInfoSetSize()} entries.
+ */
+public class BettingTree {
+
+	/** Actions, the same as Game.Action, which this package can't see */
+	public static final int FOLD = 0, CHECK = 1, CALL = 2, BET = 3, RAISE = 4;
+
+	/** Streets, numbered by when the betting on them happens */
+	public static final int PREFLOP = 0, FLOP = 1, TURN = 2, RIVER = 3;
+
+	/** Raises allowed on each street by default */
+	public static final int DEFAULT_MAX_RAISES = 2;
+
+	private static final int DECISION = 0, FOLDED = 1, SHOWDOWN = 2;
+
+	private final int maxRaises;
+	private final int buckets;
+
+	private int size;
+	private byte[] kind = new byte[1024];
+	// the player to act, or at a fold the player who folded
+	private byte[] player = new byte[1024];
+	private byte[] street = new byte[1024];
+	// at a terminal node, what the losing player put in, which is what they
+	// lose
+	private float[] stake = new float[1024];
+	// actions and children of decision node n are at [first[n], first[n] +
+	// count[n])
+	private int[] first = new int[1024];
+	private byte[] count = new byte[1024];
+	private int[] offset = new int[1024];
+	private int edges;
+	private byte[] actions = new byte[2048];
+	private int[] children = new int[2048];
+	private int entries;
+
+	/**
+	 * @param maxRaises
+	 *            raises allowed on each street
+	 * @param buckets
+	 *            card buckets each decision node has entries for
+	 */
+	public BettingTree(int maxRaises, int buckets) {
+		if (maxRaises < 0 || buckets < 1)
+			throw new IllegalArgumentException("maxRaises " + maxRaises
+					+ ", buckets " + buckets);
+		this.maxRaises = maxRaises;
+		this.buckets = buckets;
+		// antes are in
+		build(PREFLOP, 0, 1, 1, 0, false);
+		trim();
+	}
+
+	/**
+	 * Add the node reached with these bets and its subtree
+	 *
+	 * @param st
+	 *            street
+	 * @param toAct
+	 *            player to act
+	 * @param mine
+	 *            what the player to act has put in
+	 * @param theirs
+	 *            what the other player has put in
+	 * @param raises
+	 *            raises so far on this street
+	 * @param checked
+	 *            true if the other player checked
+	 * @return the node
+	 */
+	private int build(int st, int toAct, float mine, float theirs,
+			int raises, boolean checked) {
+		int node = add(DECISION, toAct, st);
+		float toCall = theirs - mine;
+		float pot = mine + theirs;
+		int other = 1 - toAct;
+		if (toCall == 0) {
+			float bet = Math.max(1, pot / 2);
+			int n = reserve(node, 2);
+			link(n, CHECK, checked ? endStreet(st, toAct, mine) : build(st,
+					other, theirs, mine, 0, true));
+			link(n + 1, BET, build(st, other, theirs, mine + bet, 0, false));
+		} else {
+			boolean canRaise = raises < maxRaises;
+			int n = reserve(node, canRaise ? 3 : 2);
+			link(n, FOLD, terminal(FOLDED, toAct, st, mine));
+			link(n + 1, CALL, endStreet(st, toAct, theirs));
+			if (canRaise)
+				link(n + 2, RAISE, build(st, other, theirs, theirs + toCall,
+						raises + 1, false));
+		}
+		return node;
+	}
+
+	/**
+	 * The node after a call or a second check, with both players having put
+	 * in the same
+	 *
+	 * @param actor
+	 *            player who ended the street
+	 */
+	private int endStreet(int st, int actor, float each) {
+		if (st == RIVER)
+			return terminal(SHOWDOWN, actor, st, each);
+		return build(st + 1, 1 - actor, each, each, 0, false);
+	}
+
+	private int terminal(int type, int who, int st, float amount) {
+		int node = add(type, who, st);
+		stake[node] = amount;
+		return node;
+	}
+
+	private int add(int type, int who, int st) {
+		if (size == kind.length) {
+			int capacity = size * 2;
+			kind = resize(kind, capacity);
+			player = resize(player, capacity);
+			street = resize(street, capacity);
+			stake = resize(stake, capacity);
+			first = resize(first, capacity);
+			count = resize(count, capacity);
+			offset = resize(offset, capacity);
+		}
+		kind[size] = (byte) type;
+		player[size] = (byte) who;
+		street[size] = (byte) st;
+		offset[size] = -1;
+		return size++;
+	}
+
+	/**
+	 * Set aside room for a decision node's actions, before its children are
+	 * built
+	 *
+	 * @return index of the first action
+	 */
+	private int reserve(int node, int n) {
+		if (edges + n > actions.length) {
+			int capacity = actions.length * 2;
+			actions = resize(actions, capacity);
+			children = resize(children, capacity);
+		}
+		first[node] = edges;
+		count[node] = (byte) n;
+		offset[node] = entries;
+		entries += n * buckets;
+		edges += n;
+		return first[node];
+	}
+
+	private void link(int edge, int action, int child) {
+		actions[edge] = (byte) action;
+		children[edge] = child;
+	}
+
+	private void trim() {
+		kind = resize(kind, size);
+		player = resize(player, size);
+		street = resize(street, size);
+		stake = resize(stake, size);
+		first = resize(first, size);
+		count = resize(count, size);
+		offset = resize(offset, size);
+		actions = resize(actions, edges);
+		children = resize(children, edges);
+	}
+
+	// Arrays.copyOf needs API 9
+	private static byte[] resize(byte[] array, int length) {
+		byte[] resized = new byte[length];
+		System.arraycopy(array, 0, resized, 0, Math.min(array.length, length));
+		return resized;
+	}
+
+	private static int[] resize(int[] array, int length) {
+		int[] resized = new int[length];
+		System.arraycopy(array, 0, resized, 0, Math.min(array.length, length));
+		return resized;
+	}
+
+	private static float[] resize(float[] array, int length) {
+		float[] resized = new float[length];
+		System.arraycopy(array, 0, resized, 0, Math.min(array.length, length));
+		return resized;
+	}
+
+	public int getRoot() {
+		return 0;
+	}
+
+	/**
+	 * @return number of nodes, decision and terminal
+	 */
+	public int size() {
+		return size;
+	}
+
+	public int getMaxRaises() {
+		return maxRaises;
+	}
+
+	public int getBuckets() {
+		return buckets;
+	}
+
+	/**
+	 * @return number of strategy or regret entries over all decision nodes
+	 *         and buckets
+	 */
+	public int getInfoSetSize() {
+		return entries;
+	}
+
+	public boolean isDecision(int node) {
+		return kind[node] == DECISION;
+	}
+
+	public boolean isFold(int node) {
+		return kind[node] == FOLDED;
+	}
+
+	public boolean isShowdown(int node) {
+		return kind[node] == SHOWDOWN;
+	}
+
+	/**
+	 * @return player to act at a decision node, or who folded at a fold
+	 */
+	public int getPlayer(int node) {
+		return player[node];
+	}
+
+	public int getStreet(int node) {
+		return street[node];
+	}
+
+	/**
+	 * @return at a fold, what the folding player had put in; at a showdown,
+	 *         what each player put in
+	 */
+	public float getStake(int node) {
+		return stake[node];
+	}
+
+	/**
+	 * @return number of actions at a decision node
+	 */
+	public int getActionCount(int node) {
+		return count[node];
+	}
+
+	/**
+	 * @return the i-th action at a decision node
+	 */
+	public int getAction(int node, int i) {
+		return actions[first[node] + i];
+	}
+
+	/**
+	 * @return the node the i-th action leads to
+	 */
+	public int getChild(int node, int i) {
+		return children[first[node] + i];
+	}
+
+	/**
+	 * @return the node the action leads to, or -1 if it isn't allowed there
+	 */
+	public int next(int node, int action) {
+		if (kind[node] != DECISION)
+			return -1;
+		for (int e = first[node]; e < first[node] + count[node]; e++)
+			if (actions[e] == action)
+				return children[e];
+		return -1;
+	}
+
+	/**
+	 * @return where the entries of a decision node for a bucket start
+	 */
+	public int getOffset(int node, int bucket) {
+		return offset[node] + bucket * count[node];
+	}
+}
@@ -0,0 +1,222 @@
+package ecv.poker.ai;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import ecv.poker.card.CardSet;
+
+/**
+ * The bucket of every two card hand on every flop and turn, as found offline
+ * by {@link BucketTableGenerator} from each hand's strength and potential,
+ * so classifying a hand after the flop is a lookup.
+ *
+ * Only boards that differ by more than renaming suits are kept, 1,755 flops
+ * and 16,432 turns: a board's suits are renamed in order of the ranks they
+ * hold, and the hole cards with them. Each board has an entry for each hand
+ * without a board card, packed into as few bits as the buckets need.
+ */
+public class BucketTable {
+
+	/** Streets the table covers */
+	public static final int FLOP = 0, TURN = 1;
+
+	private static final int MAGIC = 0x45435642;
+	private static final int VERSION = 1;
+
+	private final int buckets;
+	private final int bits;
+	// checksum of the entries, which a strategy found with the table is
+	// saved with
+	private final long id;
+	// for each street, the boards with suits renamed, sorted, and the
+	// entries packed lowest bit first
+	private final long[][] boards;
+	private final byte[][] entries;
+
+	/**
+	 * @param boards
+	 *            for each street, boards with their suits renamed, sorted
+	 * @param entries
+	 *            for each street, the packed buckets, in board order
+	 */
+	BucketTable(int buckets, long id, long[][] boards, byte[][] entries) {
+		this.buckets = buckets;
+		this.bits = bitsFor(buckets);
+		this.id = id;
+		this.boards = boards;
+		this.entries = entries;
+	}
+
+	/**
+	 * @return bits an entry takes to hold any of the buckets
+	 */
+	static int bitsFor(int buckets) {
+		if (buckets < 1 || buckets > 256)
+			throw new IllegalArgumentException(buckets + " buckets");
+		return Math.max(1, 32 - Integer.numberOfLeadingZeros(buckets - 1));
+	}
+
+	/**
+	 * Read a table written by {@link #write(OutputStream)}
+	 *
+	 * @throws IOException
+	 *             if the stream can't be read or doesn't hold a table
+	 */
+	public static BucketTable read(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if (data.readInt() != MAGIC)
+			throw new IOException("Not a bucket table");
+		int version = data.readInt();
+		if (version != VERSION)
+			throw new IOException("Bucket table version " + version);
+		int buckets = data.readInt();
+		if (buckets < 1 || buckets > 256)
+			throw new IOException(buckets + " buckets");
+		long id = data.readLong();
+		long[][] boards = new long[2][];
+		byte[][] entries = new byte[2][];
+		for (int street = FLOP; street <= TURN; street++) {
+			boards[street] = new long[data.readInt()];
+			for (int i = 0; i < boards[street].length; i++)
+				boards[street][i] = data.readLong();
+			entries[street] = new byte[data.readInt()];
+			if (entries[street].length != size(boards[street].length,
+					street, bitsFor(buckets)))
+				throw new IOException("Bucket table doesn't fit its boards");
+			data.readFully(entries[street]);
+		}
+		return new BucketTable(buckets, id, boards, entries);
+	}
+
+	public void write(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(
+				out));
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(buckets);
+		data.writeLong(id);
+		for (int street = FLOP; street <= TURN; street++) {
+			data.writeInt(boards[street].length);
+			for (long board : boards[street])
+				data.writeLong(board);
+			data.writeInt(entries[street].length);
+			data.write(entries[street]);
+		}
+		data.flush();
+	}
+
+	/**
+	 * @return bytes the entries of a street take
+	 */
+	static int size(int boards, int street, int bits) {
+		return (int) (((long) boards * hands(street) * bits + 7) / 8);
+	}
+
+	/**
+	 * @return hands without a board card on each board of the street
+	 */
+	static int hands(int street) {
+		int cards = 52 - 3 - street;
+		return cards * (cards - 1) / 2;
+	}
+
+	public int getBuckets() {
+		return buckets;
+	}
+
+	/**
+	 * @return a checksum of the entries, the same for every copy of a table
+	 */
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * @param first
+	 *            index of one hole card
+	 * @param second
+	 *            index of the other
+	 * @param community
+	 *            a flop or turn, as a CardSet
+	 * @return the hand's bucket, 0 for the weakest
+	 */
+	public int bucket(int first, int second, long community) {
+		int size = CardSet.size(community);
+		if (size != 3 && size != 4)
+			throw new IllegalArgumentException(size + " community cards");
+		int street = size == 3 ? FLOP : TURN;
+
+		int[] rename = renameSuits(community);
+		long board = rename(community, rename);
+		int b = Arrays.binarySearch(boards[street], board);
+		if (b < 0)
+			throw new IllegalStateException("No entry for board " + board);
+		int i = rename[first / 13] * 13 + first % 13;
+		int j = rename[second / 13] * 13 + second % 13;
+		long entry = (long) b * hands(street) + liveIndex(i, j, board);
+		return read(entries[street], entry, bits);
+	}
+
+	/**
+	 * @return the new suit of each suit, in order of the ranks the board
+	 *         holds in them. Suits holding the same ranks are
+	 *         interchangeable, so it doesn't matter which comes first.
+	 */
+	static int[] renameSuits(long community) {
+		long[] keys = new long[4];
+		for (int s = 0; s < 4; s++)
+			keys[s] = (long) CardSet.ranks(community, s) << 2 | s;
+		Arrays.sort(keys);
+		int[] rename = new int[4];
+		for (int s = 0; s < 4; s++)
+			rename[(int) (keys[s] & 3)] = s;
+		return rename;
+	}
+
+	static long rename(long cards, int[] rename) {
+		long renamed = 0;
+		for (int s = 0; s < 4; s++)
+			renamed |= (long) CardSet.ranks(cards, s) << 13 * rename[s];
+		return renamed;
+	}
+
+	/**
+	 * @return number of the hand among those without a board card, counting
+	 *         as {@link OpponentRange#indexOf(int, int)} does with the board
+	 *         cards taken out of the deck
+	 */
+	static int liveIndex(int first, int second, long board) {
+		int i = first - Long.bitCount(board & (1L << first) - 1);
+		int j = second - Long.bitCount(board & (1L << second) - 1);
+		if (i > j) {
+			int t = i;
+			i = j;
+			j = t;
+		}
+		int cards = 52 - Long.bitCount(board);
+		return i * (2 * cards - i - 1) / 2 + j - i - 1;
+	}
+
+	static int read(byte[] packed, long entry, int bits) {
+		long bit = entry * bits;
+		int at = (int) (bit >>> 3), shift = (int) (bit & 7);
+		int value = (packed[at] & 0xff) >>> shift;
+		if (shift + bits > 8)
+			value |= (packed[at + 1] & 0xff) << 8 - shift;
+		return value & (1 << bits) - 1;
+	}
+
+	static void write(byte[] packed, long entry, int bits, int value) {
+		long bit = entry * bits;
+		int at = (int) (bit >>> 3), shift = (int) (bit & 7);
+		packed[at] |= value << shift;
+		if (shift + bits > 8)
+			packed[at + 1] |= value >>> 8 - shift;
+	}
+}
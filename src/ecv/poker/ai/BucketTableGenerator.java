@@ -0,0 +1,294 @@
+package ecv.poker.ai;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * Offline generator of a {@link BucketTable}. Works out the
+ * {@link HandPotential} of every hand on every flop and turn that differ by
+ * more than their suits, on every processor, then clusters the hands of each
+ * street into buckets by k-means on their expected squared strength and
+ * positive and negative potential.
+ *
+ * Each board counts in the clustering as often as it comes up once suits are
+ * told apart. The buckets are numbered in order of their mean expected
+ * squared strength, so bucket 0 is the weakest.
+ */
+public class BucketTableGenerator {
+
+	/** Most rounds of k-means */
+	public static final int MAX_ROUNDS = 50;
+
+	// features clustered on, each kept to a byte per hand
+	private static final int FEATURES = 3;
+
+	/**
+	 * Write a table
+	 *
+	 * @param args
+	 *            file to write, [buckets [, threads]]
+	 */
+	public static void main(String[] args) throws IOException,
+			InterruptedException {
+		if (args.length < 1) {
+			System.err.println("Usage: BucketTableGenerator <table> "
+					+ "[buckets [threads]]");
+			System.exit(1);
+		}
+		int buckets = args.length > 1 ? Integer.parseInt(args[1])
+				: CardAbstraction.DEFAULT_BUCKETS;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime
+				.getRuntime().availableProcessors();
+		BucketTable table = generate(buckets, threads, new Random(52));
+		FileOutputStream out = new FileOutputStream(args[0]);
+		try {
+			table.write(out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * @param buckets
+	 *            buckets for each street
+	 * @param threads
+	 *            threads to work out the boards on
+	 * @param random
+	 *            picks the first cluster centres
+	 */
+	public static BucketTable generate(int buckets, int threads, Random random)
+			throws InterruptedException {
+		int bits = BucketTable.bitsFor(buckets);
+		long[][] boards = new long[2][];
+		byte[][] entries = new byte[2][];
+		CRC32 checksum = new CRC32();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			for (int street = BucketTable.FLOP; street <= BucketTable.TURN; street++) {
+				Map<Long, Integer> counts = enumerate(3 + street);
+				boards[street] = new long[counts.size()];
+				int n = 0;
+				for (long board : counts.keySet())
+					boards[street][n++] = board;
+				Arrays.sort(boards[street]);
+				int[] weights = new int[n];
+				for (int b = 0; b < n; b++)
+					weights[b] = counts.get(boards[street][b]);
+
+				long start = System.nanoTime();
+				byte[][] features = work(boards[street], street, pool);
+				System.out.printf(Locale.US, "%d boards in %.1f s%n",
+						boards[street].length,
+						(System.nanoTime() - start) / 1e9);
+
+				byte[] labels = cluster(features, weights,
+						BucketTable.hands(street), buckets, random);
+				entries[street] = new byte[BucketTable.size(
+						boards[street].length, street, bits)];
+				for (int e = 0; e < labels.length; e++)
+					BucketTable.write(entries[street], e, bits,
+							labels[e] & 0xff);
+				checksum.update(entries[street]);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return new BucketTable(buckets, checksum.getValue(), boards, entries);
+	}
+
+	/**
+	 * @return every board of that many cards with its suits renamed, and how
+	 *         many boards telling suits apart it stands for
+	 */
+	private static Map<Long, Integer> enumerate(int cards) {
+		Map<Long, Integer> seen = new HashMap<Long, Integer>();
+		int[] c = new int[cards];
+		for (int i = 0; i < cards; i++)
+			c[i] = i;
+		while (true) {
+			long board = 0;
+			for (int card : c)
+				board |= 1L << card;
+			Long key = BucketTable.rename(board,
+					BucketTable.renameSuits(board));
+			Integer count = seen.get(key);
+			seen.put(key, count == null ? 1 : count + 1);
+			// next combination in lexicographic order
+			int i = cards - 1;
+			while (i >= 0 && c[i] == 52 - cards + i)
+				i--;
+			if (i < 0)
+				return seen;
+			c[i]++;
+			for (int j = i + 1; j < cards; j++)
+				c[j] = c[j - 1] + 1;
+		}
+	}
+
+	/**
+	 * Work out every board on the pool
+	 *
+	 * @return for each feature, a byte for each hand of each board, in
+	 *         entry order
+	 */
+	private static byte[][] work(final long[] boards, final int street,
+			ExecutorService pool) throws InterruptedException {
+		final int hands = BucketTable.hands(street);
+		final byte[][] features = new byte[FEATURES][boards.length * hands];
+		List<Future<?>> tasks = new ArrayList<Future<?>>(boards.length);
+		for (int b = 0; b < boards.length; b++) {
+			final int index = b;
+			tasks.add(pool.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					HandPotential potential = new HandPotential(boards[index]);
+					for (int c : potential.getHands()) {
+						int e = index * hands + BucketTable.liveIndex(
+								OpponentRange.FIRST[c], OpponentRange.SECOND[c],
+								boards[index]);
+						features[0][e] = quantize(potential
+								.getExpectedSquaredStrength(c));
+						features[1][e] = quantize(potential
+								.getPositivePotential(c));
+						features[2][e] = quantize(potential
+								.getNegativePotential(c));
+					}
+					return null;
+				}
+			}));
+		}
+		for (Future<?> task : tasks) {
+			try {
+				task.get();
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+		return features;
+	}
+
+	private static byte quantize(float value) {
+		return (byte) Math.round(value * 255);
+	}
+
+	/**
+	 * Weighted k-means, started by k-means++
+	 *
+	 * @param features
+	 *            for each feature, a byte per point
+	 * @param weights
+	 *            weight of each board, whose hands are a run of points
+	 * @param hands
+	 *            points in each run
+	 * @return each point's cluster, in order of the first feature's mean
+	 */
+	private static byte[] cluster(byte[][] features, int[] weights,
+			int hands, int k, Random random) {
+		int n = features[0].length;
+		float[][] centres = new float[k][FEATURES];
+
+		// k-means++: each centre a point drawn in proportion to its weight
+		// times its squared distance from the nearest centre so far
+		float[] nearest = new float[n];
+		Arrays.fill(nearest, Float.MAX_VALUE);
+		for (int c = 0; c < k; c++) {
+			double total = 0;
+			for (int p = 0; p < n; p++)
+				total += weights[p / hands] * (c == 0 ? 1 : nearest[p]);
+			double target = random.nextDouble() * total;
+			int pick = n - 1;
+			for (int p = 0; p < n; p++) {
+				target -= weights[p / hands] * (c == 0 ? 1 : nearest[p]);
+				if (target < 0) {
+					pick = p;
+					break;
+				}
+			}
+			for (int f = 0; f < FEATURES; f++)
+				centres[c][f] = value(features[f][pick]);
+			for (int p = 0; p < n; p++)
+				nearest[p] = Math.min(nearest[p], (float) distance(features,
+						p, centres[c]));
+		}
+
+		byte[] labels = new byte[n];
+		for (int round = 0; round < MAX_ROUNDS; round++) {
+			int moved = 0;
+			double[][] sums = new double[k][FEATURES];
+			double[] mass = new double[k];
+			for (int p = 0; p < n; p++) {
+				int best = 0;
+				double bestDistance = Double.MAX_VALUE;
+				for (int c = 0; c < k; c++) {
+					double d = distance(features, p, centres[c]);
+					if (d < bestDistance) {
+						bestDistance = d;
+						best = c;
+					}
+				}
+				if (round == 0 || labels[p] != (byte) best)
+					moved++;
+				labels[p] = (byte) best;
+				int w = weights[p / hands];
+				mass[best] += w;
+				for (int f = 0; f < FEATURES; f++)
+					sums[best][f] += w * value(features[f][p]);
+			}
+			for (int c = 0; c < k; c++)
+				if (mass[c] > 0)
+					for (int f = 0; f < FEATURES; f++)
+						centres[c][f] = (float) (sums[c][f] / mass[c]);
+			if (moved == 0)
+				break;
+		}
+
+		// renumber by the first feature
+		Integer[] order = new Integer[k];
+		for (int c = 0; c < k; c++)
+			order[c] = c;
+		final float[][] means = centres;
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Float.compare(means[a][0], means[b][0]);
+			}
+		});
+		int[] renumber = new int[k];
+		for (int c = 0; c < k; c++) {
+			renumber[order[c]] = c;
+			System.out.printf(Locale.US, "bucket %d: %.3f %.3f %.3f%n", c,
+					means[order[c]][0], means[order[c]][1],
+					means[order[c]][2]);
+		}
+		for (int p = 0; p < n; p++)
+			labels[p] = (byte) renumber[labels[p] & 0xff];
+		return labels;
+	}
+
+	private static float value(byte feature) {
+		return (feature & 0xff) / 255f;
+	}
+
+	private static double distance(byte[][] features, int p, float[] centre) {
+		double d = 0;
+		for (int f = 0; f < FEATURES; f++) {
+			double x = value(features[f][p]) - centre[f];
+			d += x * x;
+		}
+		return d;
+	}
+}
@@ -0,0 +1,107 @@
+package ecv.poker.ai;
+
+import ecv.poker.card.Board;
+import ecv.poker.card.CardSet;
+
+/**
+ * Sorts hole cards into a few buckets of hands that play alike, so a strategy
+ * only has to be found for each bucket rather than each hand.
+ *
+ * Hands are bucketed by strength, the share of the other hands they beat,
+ * counting ties as half, split into equal ranges. Before the flop that is the
+ * share of hands with a lower heads up equity, after it the share of hands
+ * worse on the board as it is. Draws count for nothing until they come in.
+ *
+ * Given a {@link BucketTable}, hands on the flop and turn are looked up in it
+ * instead, which buckets them by their potential as well as their strength.
+ */
+public class CardAbstraction {
+
+	/** Buckets a strategy is found for by default */
+	public static final int DEFAULT_BUCKETS = 8;
+
+	private final int buckets;
+	// null to bucket by strength on every street
+	private final BucketTable table;
+
+	public CardAbstraction(int buckets) {
+		if (buckets < 1)
+			throw new IllegalArgumentException("No buckets: " + buckets);
+		this.buckets = buckets;
+		table = null;
+	}
+
+	/**
+	 * @param table
+	 *            buckets for the flop and turn, with as many buckets as the
+	 *            other streets get
+	 */
+	public CardAbstraction(BucketTable table) {
+		this.buckets = table.getBuckets();
+		this.table = table;
+	}
+
+	public int getBuckets() {
+		return buckets;
+	}
+
+	/**
+	 * @return the table of flop and turn buckets, or null if there is none
+	 */
+	public BucketTable getTable() {
+		return table;
+	}
+
+	/**
+	 * @param first
+	 *            index of one hole card
+	 * @param second
+	 *            index of the other
+	 * @param board
+	 *            the board so far, empty or 3 to 5 cards
+	 * @return the hand's bucket, 0 for the weakest
+	 */
+	public int bucket(int first, int second, Board board) {
+		if (table != null && (board.size() == 3 || board.size() == 4))
+			return table.bucket(first, second, board.getCards());
+		return Math.min(buckets - 1, (int) (strength(first, second, board)
+				* buckets));
+	}
+
+	/**
+	 * @see #bucket(int, int, Board)
+	 * @return the share of the other hands the hand beats, from 0 to 1
+	 */
+	public static float strength(int first, int second, Board board) {
+		if (board.size() == 0)
+			return OpponentRange.preflopStrength(first, second);
+		int hand = board.evaluate(first, second);
+		long dead = board.getCards() | 1L << first | 1L << second;
+		int beaten = 0, tied = 0, hands = 0;
+		for (int c = 0; c < OpponentRange.COMBOS; c++) {
+			if (OpponentRange.isDead(c, dead))
+				continue;
+			int other = board.evaluate(OpponentRange.FIRST[c],
+					OpponentRange.SECOND[c]);
+			hands++;
+			if (hand > other)
+				beaten++;
+			else if (hand == other)
+				tied++;
+		}
+		return (beaten + tied / 2f) / hands;
+	}
+
+	/**
+	 * @param holeCards
+	 *            two hole cards, as a CardSet
+	 * @param community
+	 *            the board so far, as a CardSet
+	 * @see #bucket(int, int, Board)
+	 */
+	public int bucket(long holeCards, long community) {
+		return bucket(Long.numberOfTrailingZeros(holeCards),
+				63 - Long.numberOfLeadingZeros(holeCards),
+				Board.of(CardSet.toList(community)));
+	}
+}
@@ -0,0 +1,463 @@
+package ecv.poker.ai;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ecv.poker.card.Board;
+import ecv.poker.card.Card;
+
+/**
+ * Offline solver for a strategy for the heads up game, by CFR+ over a
+ * {@link BettingTree} with {@link CardAbstraction} buckets. Run main to train
+ * one and write it out as a {@link StrategyTable} for the bot.
+ *
+ * Each iteration is a batch of random deals on every thread. A thread plays
+ * its deals through the whole betting tree for each player in turn, under
+ * the strategy the regrets give at the start of the batch, and adds up the
+ * changes to the regrets and strategy sums in arrays of its own. Once every
+ * thread is done the changes are added to the shared arrays, regrets are
+ * floored at 0 as CFR+ does, and the next batch starts, so threads never
+ * write to the same array. Later iterations count for more in the average
+ * strategy, in proportion to their number.
+ *
+ * Regrets and strategy sums are float arrays in the tree's layout, and can
+ * be saved to a checkpoint and loaded again to carry on training.
+ */
+public class CfrSolver {
+
+	/** Deals each thread plays per iteration by default */
+	public static final int DEFAULT_DEALS_PER_THREAD = 1024;
+	/** Iterations between checkpoints from main */
+	public static final int CHECKPOINT_INTERVAL = 50;
+
+	private static final int CHECKPOINT_MAGIC = 0x45434346;
+	private static final int CHECKPOINT_VERSION = 2;
+
+	private final BettingTree tree;
+	private final CardAbstraction cards;
+	private final float[] regrets;
+	private final float[] strategySums;
+	private final long seed;
+	private long iterations;
+	private long deals;
+
+	/**
+	 * @param seed
+	 *            seeds every iteration's deals, so training is repeatable
+	 *            with the same number of threads
+	 */
+	public CfrSolver(int maxRaises, int buckets, long seed) {
+		this(maxRaises, new CardAbstraction(buckets), seed);
+	}
+
+	/**
+	 * @param cards
+	 *            buckets to find the strategy for
+	 * @see #CfrSolver(int, int, long)
+	 */
+	public CfrSolver(int maxRaises, CardAbstraction cards, long seed) {
+		tree = new BettingTree(maxRaises, cards.getBuckets());
+		this.cards = cards;
+		regrets = new float[tree.getInfoSetSize()];
+		strategySums = new float[tree.getInfoSetSize()];
+		this.seed = seed;
+	}
+
+	public BettingTree getTree() {
+		return tree;
+	}
+
+	/**
+	 * @return iterations trained so far, counting those from a checkpoint
+	 */
+	public long getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * @return deals played so far, counting those from a checkpoint
+	 */
+	public long getDeals() {
+		return deals;
+	}
+
+	/**
+	 * Run more iterations
+	 *
+	 * @param count
+	 *            iterations to run
+	 * @param threads
+	 *            threads to play deals on
+	 * @param dealsPerThread
+	 *            deals each thread plays per iteration
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the threads, which are
+	 *             then stopped. Iterations already done are kept.
+	 */
+	public void train(int count, int threads, int dealsPerThread)
+			throws InterruptedException {
+		if (threads < 1)
+			throw new IllegalArgumentException("No threads: " + threads);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			final Worker[] workers = new Worker[threads];
+			for (int t = 0; t < threads; t++)
+				workers[t] = new Worker();
+			for (int i = 0; i < count; i++) {
+				List<Future<?>> tasks = new ArrayList<Future<?>>(threads);
+				for (int t = 0; t < threads; t++) {
+					final Worker worker = workers[t];
+					final long dealSeed = seed
+							^ (iterations * threads + t) * 0x9e3779b97f4a7c15L;
+					final int n = dealsPerThread;
+					final long iteration = iterations + 1;
+					tasks.add(pool.submit(new Callable<Void>() {
+						@Override
+						public Void call() {
+							worker.play(n, new Random(dealSeed), iteration);
+							return null;
+						}
+					}));
+				}
+				for (Future<?> task : tasks) {
+					try {
+						task.get();
+					} catch (ExecutionException e) {
+						throw new RuntimeException(e.getCause());
+					}
+				}
+				merge(workers);
+				iterations++;
+				deals += (long) threads * dealsPerThread;
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Add the workers' changes to the shared arrays, in the same order every
+	 * time so the sums don't depend on scheduling
+	 */
+	private void merge(Worker[] workers) {
+		for (int i = 0; i < regrets.length; i++) {
+			float regret = regrets[i], sum = strategySums[i];
+			for (Worker worker : workers) {
+				regret += worker.regretDeltas[i];
+				sum += worker.strategyDeltas[i];
+				worker.regretDeltas[i] = 0;
+				worker.strategyDeltas[i] = 0;
+			}
+			regrets[i] = Math.max(0, regret);
+			strategySums[i] = sum;
+		}
+	}
+
+	/**
+	 * Regret matching: each action in proportion to its positive regret, or
+	 * all alike if none has any
+	 */
+	private void currentStrategy(int base, int n, double[] out) {
+		double total = 0;
+		for (int a = 0; a < n; a++)
+			total += regrets[base + a];
+		for (int a = 0; a < n; a++)
+			out[a] = total > 0 ? regrets[base + a] / total : 1.0 / n;
+	}
+
+	/**
+	 * @return the average strategy so far, to a byte per entry
+	 */
+	public StrategyTable getStrategy() {
+		byte[] probabilities = new byte[strategySums.length];
+		for (int node = 0; node < tree.size(); node++) {
+			if (!tree.isDecision(node))
+				continue;
+			int n = tree.getActionCount(node);
+			for (int b = 0; b < tree.getBuckets(); b++) {
+				int base = tree.getOffset(node, b);
+				double total = 0;
+				for (int a = 0; a < n; a++)
+					total += strategySums[base + a];
+				for (int a = 0; a < n; a++) {
+					double p = total > 0 ? strategySums[base + a] / total
+							: 1.0 / n;
+					probabilities[base + a] = (byte) Math.round(p * 255);
+				}
+			}
+		}
+		return new StrategyTable(tree, cards, probabilities);
+	}
+
+	/**
+	 * Write the regrets and strategy sums to a file, by way of a temporary
+	 * one so a crash can't leave half a checkpoint
+	 */
+	public void saveCheckpoint(File file) throws IOException {
+		File temp = new File(file.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(temp)));
+		try {
+			out.writeInt(CHECKPOINT_MAGIC);
+			out.writeInt(CHECKPOINT_VERSION);
+			out.writeInt(tree.getMaxRaises());
+			out.writeInt(tree.getBuckets());
+			out.writeInt(regrets.length);
+			out.writeLong(getTableId());
+			out.writeLong(seed);
+			out.writeLong(iterations);
+			out.writeLong(deals);
+			for (float regret : regrets)
+				out.writeFloat(regret);
+			for (float sum : strategySums)
+				out.writeFloat(sum);
+		} finally {
+			out.close();
+		}
+		if (file.exists() && !file.delete())
+			throw new IOException("Can't replace " + file);
+		if (!temp.renameTo(file))
+			throw new IOException("Can't rename " + temp + " to " + file);
+	}
+
+	/**
+	 * Carry on from a checkpoint saved with the same tree and buckets
+	 *
+	 * @throws IOException
+	 *             if it can't be read or was saved for another tree
+	 */
+	public void loadCheckpoint(File file) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file)));
+		try {
+			if (in.readInt() != CHECKPOINT_MAGIC
+					|| in.readInt() != CHECKPOINT_VERSION)
+				throw new IOException(file + " isn't a checkpoint");
+			if (in.readInt() != tree.getMaxRaises()
+					|| in.readInt() != tree.getBuckets()
+					|| in.readInt() != regrets.length)
+				throw new IOException(file + " is for another tree");
+			if (in.readLong() != getTableId())
+				throw new IOException(file + " is for another bucket table");
+			if (in.readLong() != seed)
+				throw new IOException(file + " was trained from another seed");
+			iterations = in.readLong();
+			deals = in.readLong();
+			for (int i = 0; i < regrets.length; i++)
+				regrets[i] = in.readFloat();
+			for (int i = 0; i < strategySums.length; i++)
+				strategySums[i] = in.readFloat();
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * @return id of the bucket table, or 0 if there is none
+	 */
+	private long getTableId() {
+		return cards.getTable() == null ? 0 : cards.getTable().getId();
+	}
+
+	/**
+	 * Plays deals for one thread, keeping its changes apart until they are
+	 * merged
+	 */
+	private class Worker {
+		final float[] regretDeltas = new float[regrets.length];
+		final float[] strategyDeltas = new float[regrets.length];
+
+		private final int[] deck = new int[52];
+		// [player][street]
+		private final int[][] buckets = new int[2][4];
+		// 1 if player 0 wins the showdown, -1 if player 1 does, 0 on a tie
+		private int showdown;
+		// strategy and action values at each depth of the walk
+		private final double[][] strategy, values;
+		private float weight;
+
+		Worker() {
+			for (int i = 0; i < 52; i++)
+				deck[i] = i;
+			// a street has at most a check, a bet, the raises and a call
+			int depth = 4 * (tree.getMaxRaises() + 3) + 1;
+			strategy = new double[depth][3];
+			values = new double[depth][3];
+		}
+
+		/**
+		 * @param iteration
+		 *            number of this iteration, from 1, which the strategy
+		 *            sums are weighted by
+		 */
+		void play(int n, Random random, long iteration) {
+			weight = iteration;
+			for (int i = 0; i < n; i++) {
+				if (Thread.currentThread().isInterrupted())
+					return;
+				deal(random);
+				walk(tree.getRoot(), 0, 1, 1, 0);
+				walk(tree.getRoot(), 1, 1, 1, 0);
+			}
+		}
+
+		/**
+		 * Deal both hands and the board, then bucket each hand on each street
+		 */
+		private void deal(Random random) {
+			// the first 9 places of the deck: each player's hand, the board
+			for (int k = 0; k < 9; k++) {
+				int j = k + random.nextInt(52 - k);
+				int card = deck[j];
+				deck[j] = deck[k];
+				deck[k] = card;
+			}
+			Board board = Board.EMPTY;
+			for (int st = BettingTree.PREFLOP; st <= BettingTree.RIVER; st++) {
+				if (st == BettingTree.FLOP)
+					board = board.with(Card.get(deck[4]))
+							.with(Card.get(deck[5])).with(Card.get(deck[6]));
+				else if (st > BettingTree.FLOP)
+					board = board.with(Card.get(deck[st + 4]));
+				for (int p = 0; p < 2; p++)
+					buckets[p][st] = cards.bucket(deck[2 * p],
+							deck[2 * p + 1], board);
+			}
+			int first = board.evaluate(deck[0], deck[1]);
+			int second = board.evaluate(deck[2], deck[3]);
+			showdown = first > second ? 1 : first < second ? -1 : 0;
+		}
+
+		/**
+		 * @param p
+		 *            the player whose regrets are being updated
+		 * @param reach
+		 *            chance p's strategy reaches the node
+		 * @param opponentReach
+		 *            chance the other player's strategy does
+		 * @return p's expected winnings from the node, in antes
+		 */
+		private double walk(int node, int p, double reach,
+				double opponentReach, int depth) {
+			if (tree.isFold(node))
+				return tree.getPlayer(node) == p ? -tree.getStake(node) : tree
+						.getStake(node);
+			if (tree.isShowdown(node))
+				return (p == 0 ? showdown : -showdown) * tree.getStake(node);
+
+			int actor = tree.getPlayer(node);
+			int n = tree.getActionCount(node);
+			int base = tree.getOffset(node,
+					buckets[actor][tree.getStreet(node)]);
+			double[] sigma = strategy[depth];
+			currentStrategy(base, n, sigma);
+
+			double value = 0;
+			if (actor != p) {
+				for (int a = 0; a < n; a++)
+					if (sigma[a] > 0)
+						value += sigma[a]
+								* walk(tree.getChild(node, a), p, reach,
+										opponentReach * sigma[a], depth + 1);
+				return value;
+			}
+			double[] v = values[depth];
+			for (int a = 0; a < n; a++) {
+				v[a] = walk(tree.getChild(node, a), p, reach * sigma[a],
+						opponentReach, depth + 1);
+				value += sigma[a] * v[a];
+			}
+			for (int a = 0; a < n; a++) {
+				regretDeltas[base + a] += opponentReach * (v[a] - value);
+				strategyDeltas[base + a] += weight * reach * sigma[a];
+			}
+			return value;
+		}
+	}
+
+	/**
+	 * Train a strategy and write it out. Carries on from the checkpoint if
+	 * there is one, and saves it every {@value #CHECKPOINT_INTERVAL}
+	 * iterations.
+	 *
+	 * @param args
+	 *            checkpoint file, strategy file, iterations to run
+	 *            [, threads [, buckets [, max raises [, bucket table]]]]
+	 */
+	public static void main(String[] args) throws IOException,
+			InterruptedException {
+		if (args.length < 3) {
+			System.err.println("Usage: CfrSolver <checkpoint> <strategy> "
+					+ "<iterations> [threads [buckets [max raises "
+					+ "[bucket table]]]]");
+			System.exit(1);
+		}
+		File checkpoint = new File(args[0]);
+		File strategy = new File(args[1]);
+		int count = Integer.parseInt(args[2]);
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime
+				.getRuntime().availableProcessors();
+		int buckets = args.length > 4 ? Integer.parseInt(args[4])
+				: CardAbstraction.DEFAULT_BUCKETS;
+		int maxRaises = args.length > 5 ? Integer.parseInt(args[5])
+				: BettingTree.DEFAULT_MAX_RAISES;
+
+		CardAbstraction cards = new CardAbstraction(buckets);
+		if (args.length > 6) {
+			FileInputStream in = new FileInputStream(args[6]);
+			try {
+				cards = new CardAbstraction(BucketTable.read(in));
+			} finally {
+				in.close();
+			}
+			if (cards.getBuckets() != buckets) {
+				System.err.println(args[6] + " has " + cards.getBuckets()
+						+ " buckets, not " + buckets);
+				System.exit(1);
+			}
+		}
+
+		CfrSolver solver = new CfrSolver(maxRaises, cards, 52);
+		if (checkpoint.exists()) {
+			solver.loadCheckpoint(checkpoint);
+			System.out.println("Carrying on from " + solver.getIterations()
+					+ " iterations");
+		}
+		System.out.println(solver.getTree().size() + " nodes, "
+				+ solver.getTree().getInfoSetSize() + " entries, " + threads
+				+ " threads");
+
+		long start = System.nanoTime();
+		long startDeals = solver.getDeals();
+		for (int done = 0; done < count; done += CHECKPOINT_INTERVAL) {
+			solver.train(Math.min(CHECKPOINT_INTERVAL, count - done), threads,
+					DEFAULT_DEALS_PER_THREAD);
+			solver.saveCheckpoint(checkpoint);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.printf("%d iterations, %.0f deals/s%n",
+					solver.getIterations(), (solver.getDeals() - startDeals)
+							/ seconds);
+		}
+
+		FileOutputStream out = new FileOutputStream(strategy);
+		try {
+			solver.getStrategy().write(out);
+		} finally {
+			out.close();
+		}
+	}
+}
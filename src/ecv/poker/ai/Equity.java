@@ -0,0 +1,184 @@
+package ecv.poker.ai;
+
+/**
+ * How a hand fared over a number of played out deals, either every possible
+ * deal or a random sample of them.
+ *
+ * A win is a deal where the hand beats every opponent, a tie one where it
+ * splits the pot with one or more of them. Against several opponents a tie
+ * is worth less than half a pot, so the share of pots won is kept as well.
+ *
+ * Sampled deals also carry the variance of the chance of winning or
+ * splitting as estimated from them. For independent deals that is the
+ * binomial p(1 - p) / n, but sampling schemes that spread the deals out, like
+ * the simulator's stratified one, get lower variance from as many deals. The
+ * confidence bounds take that into account.
+ */
+public class Equity {
+
+	private final long trials;
+	private final long wins;
+	private final long ties;
+	// pots won, counting a share of each split pot
+	private final double share;
+	// of (wins + ties) / trials as an estimate
+	private final double variance;
+	private final boolean exact;
+
+	/**
+	 * Counts against one opponent, where every tie is half a pot
+	 */
+	public Equity(long trials, long wins, long ties, boolean exact) {
+		this(trials, wins, ties, wins + ties / 2.0, exact);
+	}
+
+	/**
+	 * Counts over independent deals, or all of them
+	 *
+	 * @param share
+	 *            pots won over the deals, counting 1 / n for a pot split n
+	 *            ways
+	 */
+	public Equity(long trials, long wins, long ties, double share,
+			boolean exact) {
+		this(trials, wins, ties, share, exact ? 0 : binomialVariance(trials,
+				wins + ties), exact);
+	}
+
+	/**
+	 * @param variance
+	 *            estimated variance of (wins + ties) / trials
+	 * @see #Equity(long, long, long, double, boolean)
+	 */
+	public Equity(long trials, long wins, long ties, double share,
+			double variance, boolean exact) {
+		this.trials = trials;
+		this.wins = wins;
+		this.ties = ties;
+		this.share = share;
+		this.variance = variance;
+		this.exact = exact;
+	}
+
+	private static double binomialVariance(long trials, long successes) {
+		if (trials == 0)
+			return 0;
+		double p = (double) successes / trials;
+		return p * (1 - p) / trials;
+	}
+
+	/**
+	 * @return number of deals played out
+	 */
+	public long getTrials() {
+		return trials;
+	}
+
+	public long getWins() {
+		return wins;
+	}
+
+	public long getTies() {
+		return ties;
+	}
+
+	/**
+	 * @return true if every possible deal was played out
+	 */
+	public boolean isExact() {
+		return exact;
+	}
+
+	public float getWinProbability() {
+		return trials == 0 ? 0 : (float) wins / trials;
+	}
+
+	public float getTieProbability() {
+		return trials == 0 ? 0 : (float) ties / trials;
+	}
+
+	/**
+	 * @return chance of winning or splitting the pot
+	 */
+	public float getWinOrTieProbability() {
+		return trials == 0 ? 0 : (float) (wins + ties) / trials;
+	}
+
+	/**
+	 * @return the share of the pot won on average
+	 */
+	public float getEquity() {
+		return trials == 0 ? 0 : (float) (share / trials);
+	}
+
+	/**
+	 * @return estimated variance of {@link #getWinOrTieProbability()}, 0 when
+	 *         the deals were enumerated
+	 */
+	public double getVariance() {
+		return variance;
+	}
+
+	/**
+	 * @return number of independent deals that would give the same variance
+	 */
+	public double getEffectiveTrials() {
+		double p = (double) (wins + ties) / trials;
+		if (variance <= 0 || p == 0 || p == 1)
+			return trials;
+		return p * (1 - p) / variance;
+	}
+
+	/**
+	 * Lower end of the Wilson score interval for the chance of winning or
+	 * splitting the pot, taken over the effective number of deals. The same
+	 * as the probability when the deals were enumerated.
+	 *
+	 * @param z
+	 *            standard normal quantile for the confidence wanted, 1.96 for
+	 *            95%
+	 */
+	public double getLowerBound(double z) {
+		return exact ? getWinOrTieProbability() : center(z) - halfWidth(z);
+	}
+
+	/**
+	 * @see #getLowerBound(double)
+	 */
+	public double getUpperBound(double z) {
+		return exact ? getWinOrTieProbability() : center(z) + halfWidth(z);
+	}
+
+	private double center(double z) {
+		if (trials == 0)
+			return 0.5;
+		double p = (double) (wins + ties) / trials;
+		double n = getEffectiveTrials();
+		return (p + z * z / (2 * n)) / (1 + z * z / n);
+	}
+
+	private double halfWidth(double z) {
+		if (trials == 0)
+			return 0.5;
+		double p = (double) (wins + ties) / trials;
+		double n = getEffectiveTrials();
+		return z / (1 + z * z / n)
+				* Math.sqrt(p * (1 - p) / n + z * z / (4.0 * n * n));
+	}
+
+	/**
+	 * @param other
+	 *            more deals of the same hand and board
+	 * @return the counts over both sets of deals
+	 */
+	public Equity plus(Equity other) {
+		long total = trials + other.trials;
+		// variance of the mean of the two, weighted by their deals
+		double combined = total == 0 ? 0 : ((double) trials * trials
+				* variance + (double) other.trials * other.trials
+				* other.variance)
+				/ total / total;
+		return new Equity(total, wins + other.wins, ties + other.ties, share
+				+ other.share, combined, exact && other.exact);
+	}
+}
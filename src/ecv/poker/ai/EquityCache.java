@@ -0,0 +1,241 @@
+package ecv.poker.ai;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ecv.poker.card.Card;
+import ecv.poker.card.CardSet;
+
+/**
+ * Remembers the equity of hands the bot has already worked out, so a
+ * situation that comes up again costs a lookup rather than another
+ * simulation.
+ *
+ * Suits only matter in how they are shared between the hole cards and the
+ * board, so situations that are the same up to renaming suits, such as
+ * A&hearts;K&hearts; on a Q&hearts;7&hearts;2&spades; flop and
+ * A&spades;K&spades; on Q&spades;7&spades;2&clubs;, share an entry. The least
+ * recently used entry is dropped once the cache is full. All methods are
+ * thread safe.
+ *
+ * Equity against a narrowed range is kept apart from equity against every
+ * hand, under a 64 bit hash of the range's weights with its suits renamed
+ * the same way.
+ */
+public class EquityCache {
+
+	/** Entries kept by the shared cache */
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	private static final EquityCache INSTANCE = new EquityCache(
+			DEFAULT_CAPACITY);
+
+	private final Map<Key, Equity> map;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * @param capacity
+	 *            most entries to keep
+	 */
+	public EquityCache(final int capacity) {
+		// access order, so the eldest entry is the least recently used
+		map = new LinkedHashMap<Key, Equity>(capacity * 4 / 3 + 1, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Equity> eldest) {
+				if (size() <= capacity)
+					return false;
+				evictions.incrementAndGet();
+				return true;
+			}
+		};
+	}
+
+	public static EquityCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @param holeCards
+	 *            the player's two hole cards
+	 * @param community
+	 *            community cards dealt so far
+	 * @return the equity against every hand stored for this situation or
+	 *         one the same up to suits, or null
+	 */
+	public Equity get(List<Card> holeCards, List<Card> community) {
+		return get(holeCards, community, null);
+	}
+
+	/**
+	 * @param range
+	 *            the opponent's range, or null if every hand is equally
+	 *            likely
+	 * @see #get(List, List)
+	 */
+	public Equity get(List<Card> holeCards, List<Card> community,
+			OpponentRange range) {
+		Equity equity;
+		Key key = Key.of(CardSet.of(holeCards), CardSet.of(community), range);
+		synchronized (map) {
+			equity = map.get(key);
+		}
+		if (equity == null)
+			misses.incrementAndGet();
+		else
+			hits.incrementAndGet();
+		return equity;
+	}
+
+	/**
+	 * Store the equity of a situation, unless the one already stored was
+	 * found from more deals
+	 *
+	 * @see #get(List, List)
+	 */
+	public void put(List<Card> holeCards, List<Card> community, Equity equity) {
+		put(holeCards, community, null, equity);
+	}
+
+	/**
+	 * @param range
+	 *            the opponent's range, or null if every hand is equally
+	 *            likely
+	 * @see #put(List, List, Equity)
+	 */
+	public void put(List<Card> holeCards, List<Card> community,
+			OpponentRange range, Equity equity) {
+		Key key = Key.of(CardSet.of(holeCards), CardSet.of(community), range);
+		synchronized (map) {
+			Equity old = map.get(key);
+			if (old == null || isBetter(equity, old))
+				map.put(key, equity);
+		}
+	}
+
+	private static boolean isBetter(Equity equity, Equity than) {
+		if (equity.isExact() != than.isExact())
+			return equity.isExact();
+		return equity.getTrials() > than.getTrials();
+	}
+
+	public int size() {
+		synchronized (map) {
+			return map.size();
+		}
+	}
+
+	public void clear() {
+		synchronized (map) {
+			map.clear();
+		}
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("EquityCache[size=%d, hits=%d, misses=%d, "
+				+ "evictions=%d]", size(), getHitCount(), getMissCount(),
+				getEvictionCount());
+	}
+
+	/**
+	 * Hole cards, board and range with the suits renamed into a canonical
+	 * order, so that all situations the same up to suits have equal keys
+	 */
+	static class Key {
+		private final long holeCards;
+		private final long community;
+		// hash of the renamed range's weights, 0 against every hand
+		private final long range;
+
+		private Key(long holeCards, long community, long range) {
+			this.holeCards = holeCards;
+			this.community = community;
+			this.range = range;
+		}
+
+		/**
+		 * Rename the suits in order of their board ranks, then their hole
+		 * ranks. Suits that tie on both are interchangeable, so it doesn't
+		 * matter which of them comes first.
+		 *
+		 * @param holeCards
+		 *            as a CardSet
+		 * @param community
+		 *            as a CardSet
+		 * @param range
+		 *            or null if every hand is equally likely
+		 */
+		static Key of(long holeCards, long community, OpponentRange range) {
+			// the suit in the low bits, to know where each one went
+			long[] suits = new long[4];
+			for (int s = 0; s < 4; s++)
+				suits[s] = ((long) CardSet.ranks(community, s) << 13
+						| CardSet.ranks(holeCards, s)) << 2 | s;
+			Arrays.sort(suits);
+
+			long hole = 0, board = 0;
+			int[] rename = new int[4];
+			for (int s = 0; s < 4; s++) {
+				hole |= (suits[s] >>> 2 & 0x1fff) << 13 * s;
+				board |= (suits[s] >>> 15) << 13 * s;
+				rename[(int) (suits[s] & 3)] = s;
+			}
+			long hash = range == null || range.isUniform() ? 0 : hash(range,
+					rename);
+			return new Key(hole, board, hash);
+		}
+
+		/**
+		 * @return a hash of the weights, each moved to the hand with its
+		 *         suits renamed, never 0
+		 */
+		private static long hash(OpponentRange range, int[] rename) {
+			float[] renamed = new float[OpponentRange.COMBOS];
+			for (int c = 0; c < OpponentRange.COMBOS; c++) {
+				int first = OpponentRange.FIRST[c];
+				int second = OpponentRange.SECOND[c];
+				renamed[OpponentRange.indexOf(rename[first / 13] * 13 + first
+						% 13, rename[second / 13] * 13 + second % 13)] = range
+						.getWeight(first, second);
+			}
+			long h = 1125899906842597L;
+			for (float weight : renamed)
+				h = 31 * h + Float.floatToIntBits(weight);
+			return h == 0 ? 1 : h;
+		}
+
+		@Override
+		public int hashCode() {
+			long h = (holeCards * 31 + community) * 31 + range;
+			return (int) (h ^ h >>> 32);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+			Key other = (Key) o;
+			return holeCards == other.holeCards && community == other.community
+					&& range == other.range;
+		}
+	}
+}
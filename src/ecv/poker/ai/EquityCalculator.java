@@ -0,0 +1,121 @@
+package ecv.poker.ai;
+
+import java.util.List;
+
+import ecv.poker.card.Board;
+import ecv.poker.card.Card;
+import ecv.poker.card.CardSet;
+
+/**
+ * Exact equity of a hand against one opponent, found by playing out every
+ * opponent hand on every way the board can be finished.
+ *
+ * Only the player's own hole cards and the community cards are known, the
+ * opponent can hold any two of the others. On the river that is 990 deals,
+ * on the turn 45,540, so there it is cheaper to count them all than to sample.
+ *
+ * Given an opponent range, each deal counts as many times as its opponent
+ * hand's weight scaled to a whole number out of {@value #WEIGHT_SCALE}, so
+ * the counts in the result are weighted too.
+ */
+public class EquityCalculator {
+
+	/** Most deals worth enumerating before simulating instead */
+	public static final int DEFAULT_EXACT_THRESHOLD = 100000;
+	/** What the most likely opponent hand counts for */
+	public static final int WEIGHT_SCALE = 1000;
+
+	private EquityCalculator() {
+	}
+
+	/**
+	 * @param communityCards
+	 *            number of community cards dealt
+	 * @return number of deals {@link #enumerate(List, List)} plays out, every
+	 *         opponent hand on every runout
+	 */
+	public static long countDeals(int communityCards) {
+		int unknown = 52 - 2 - communityCards;
+		return choose(unknown, 2) * choose(unknown - 2, 5 - communityCards);
+	}
+
+	/**
+	 * Play out every deal of the unknown cards
+	 *
+	 * @param holeCards
+	 *            the player's two hole cards
+	 * @param community
+	 *            community cards dealt so far
+	 * @return wins and ties over all deals
+	 */
+	public static Equity enumerate(List<Card> holeCards, List<Card> community) {
+		return enumerate(holeCards, community, null);
+	}
+
+	/**
+	 * @param range
+	 *            how likely the opponent is to hold each hand, or null if
+	 *            they are all equally likely
+	 * @see #enumerate(List, List)
+	 */
+	public static Equity enumerate(List<Card> holeCards,
+			List<Card> community, OpponentRange range) {
+		int first = holeCards.get(0).getIndex();
+		int second = holeCards.get(1).getIndex();
+		Board board = Board.of(community);
+		long known = board.getCards() | CardSet.of(holeCards);
+
+		int[] unknown = new int[52 - CardSet.size(known)];
+		int n = 0;
+		for (int i = 0; i < 52; i++)
+			if ((known & 1L << i) == 0)
+				unknown[n++] = i;
+
+		int[] weights = range == null ? null : range.scaledWeights(WEIGHT_SCALE);
+		// trials, wins, ties
+		long[] counts = new long[3];
+		runouts(board, first, second, unknown, weights, 0,
+				5 - community.size(), counts);
+		return new Equity(counts[0], counts[1], counts[2], true);
+	}
+
+	/**
+	 * Deal every combination of the missing community cards, taking them in
+	 * increasing order from unknown[from] on, then every opponent hand
+	 */
+	private static void runouts(Board board, int first, int second,
+			int[] unknown, int[] weights, int from, int missing, long[] counts) {
+		if (missing > 0) {
+			for (int i = from; i <= unknown.length - missing; i++)
+				runouts(board.with(Card.get(unknown[i])), first, second,
+						unknown, weights, i + 1, missing - 1, counts);
+			return;
+		}
+
+		int hero = board.evaluate(first, second);
+		long dealt = board.getCards();
+		for (int i = 0; i < unknown.length; i++) {
+			if ((dealt & 1L << unknown[i]) != 0)
+				continue;
+			for (int j = i + 1; j < unknown.length; j++) {
+				if ((dealt & 1L << unknown[j]) != 0)
+					continue;
+				int weight = weights == null ? 1 : weights[OpponentRange
+						.indexOf(unknown[i], unknown[j])];
+				int opponent = board.evaluate(unknown[i], unknown[j]);
+				counts[0] += weight;
+				if (hero > opponent)
+					counts[1] += weight;
+				else if (hero == opponent)
+					counts[2] += weight;
+			}
+		}
+	}
+
+	private static long choose(int n, int k) {
+		long c = 1;
+		for (int i = 0; i < k; i++)
+			c = c * (n - i) / (i + 1);
+		return c;
+	}
+}
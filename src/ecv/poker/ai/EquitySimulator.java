@@ -0,0 +1,285 @@
+package ecv.poker.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import ecv.poker.card.Card;
+import ecv.poker.card.CardSet;
+
+/**
+ * Estimates equity against one or more opponents by playing out random deals
+ * of the cards that aren't known, for when there are too many to play them
+ * all out with the {@link EquityCalculator}.
+ *
+ * The deals are split into chunks that run on all processors at once. Each
+ * chunk has its own {@link SimulationKernel} and its own Random, seeded from
+ * the caller's, so chunks share nothing while they run and the result for a
+ * seed doesn't depend on how the chunks are scheduled.
+ *
+ * Deals are either independent or stratified by the first opponent's hand,
+ * see {@link Sampling}.
+ */
+public class EquitySimulator {
+
+	/** Fewest deals worth handing to another thread */
+	static final int MIN_CHUNK = 100;
+	/** Deals played before the interval is first looked at */
+	public static final int FIRST_ROUND = 200;
+	/** Width of the interval in standard deviations, for 99% confidence */
+	public static final double CONFIDENCE_Z = 2.576;
+
+	private static final int THREADS = Runtime.getRuntime()
+			.availableProcessors();
+
+	// daemon threads, so an idle pool doesn't keep the process alive
+	private static final ExecutorService POOL = Executors.newFixedThreadPool(
+			THREADS, new ThreadFactory() {
+				private int count;
+
+				@Override
+				public synchronized Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "EquitySimulator-" + ++count);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	/**
+	 * How the first opponent's hands are picked
+	 */
+	public enum Sampling {
+		/** Each deal draws a hand independently of the others */
+		RANDOM,
+		/**
+		 * The deals of each chunk are spread evenly over the hands in order of
+		 * strength on the board, in proportion to their weight. Estimates the
+		 * same equity, with less variance for as many deals.
+		 */
+		STRATIFIED
+	}
+
+	/**
+	 * Follows a simulation as it goes, for callers that may have to act
+	 * before it is done
+	 */
+	public interface Listener {
+		/**
+		 * Called on the simulating thread after each round
+		 *
+		 * @param equity
+		 *            wins and ties over all deals so far
+		 */
+		void roundPlayed(Equity equity);
+	}
+
+	private EquitySimulator() {
+	}
+
+	/**
+	 * Play out random deals against one opponent on the shared pool of
+	 * threads
+	 *
+	 * @param holeCards
+	 *            the player's two hole cards
+	 * @param community
+	 *            community cards dealt so far
+	 * @param trials
+	 *            number of deals to play out
+	 * @param random
+	 *            seeds each chunk's Random
+	 * @return wins and ties over the deals played
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the chunks, which are then
+	 *             cancelled
+	 */
+	public static Equity simulate(List<Card> holeCards, List<Card> community,
+			int trials, Random random) throws InterruptedException {
+		return simulate(holeCards, community, trials, random, POOL, THREADS);
+	}
+
+	/**
+	 * @param pool
+	 *            runs the chunks
+	 * @param chunks
+	 *            most chunks to split the deals into, usually the number of
+	 *            threads in the pool
+	 * @see #simulate(List, List, int, Random)
+	 */
+	public static Equity simulate(List<Card> holeCards, List<Card> community,
+			int trials, Random random, ExecutorService pool, int chunks)
+			throws InterruptedException {
+		return simulate(holeCards, community, 1, null, Sampling.RANDOM, null,
+				trials, null, random, null, pool, chunks);
+	}
+
+	/**
+	 * Play out deals in rounds on the shared pool of threads, until the
+	 * chance of winning or splitting is known well enough to tell which side
+	 * of every threshold it is on, or maxTrials deals have been played.
+	 *
+	 * The first round is {@value #FIRST_ROUND} deals and every round after
+	 * doubles the total, so only a few looks are taken at the interval.
+	 *
+	 * @param holeCards
+	 *            the player's two hole cards
+	 * @param community
+	 *            community cards dealt so far
+	 * @param opponents
+	 *            number of opponents, at least 1
+	 * @param range
+	 *            how likely the first opponent is to hold each hand, or null
+	 *            if they are all equally likely. The others can hold any
+	 *            hand.
+	 * @param sampling
+	 *            how the first opponent's hands are picked
+	 * @param prior
+	 *            deals already played of the same hand, board, opponents and
+	 *            range, which these are added to, or null
+	 * @param maxTrials
+	 *            most deals to play, counting the prior ones
+	 * @param thresholds
+	 *            probabilities the caller's decision turns on, or null to
+	 *            play all maxTrials deals
+	 * @param random
+	 *            seeds each chunk's Random
+	 * @param listener
+	 *            told the running totals after each round, or null
+	 * @return wins and ties over the prior deals and those played, with the
+	 *         variance of the estimate
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the chunks, which are then
+	 *             cancelled
+	 * @see #isSettled(Equity, float[])
+	 */
+	public static Equity simulate(List<Card> holeCards, List<Card> community,
+			int opponents, OpponentRange range, Sampling sampling,
+			Equity prior, int maxTrials, float[] thresholds, Random random,
+			Listener listener) throws InterruptedException {
+		return simulate(holeCards, community, opponents, range, sampling,
+				prior, maxTrials, thresholds, random, listener, POOL, THREADS);
+	}
+
+	/**
+	 * @param pool
+	 *            runs the chunks
+	 * @param chunks
+	 *            most chunks to split each round into, usually the number of
+	 *            threads in the pool
+	 * @see #simulate(List, List, int, OpponentRange, Sampling, Equity, int,
+	 *      float[], Random, Listener)
+	 */
+	public static Equity simulate(List<Card> holeCards, List<Card> community,
+			int opponents, OpponentRange range, Sampling sampling,
+			Equity prior, int maxTrials, float[] thresholds, Random random,
+			Listener listener, ExecutorService pool, int chunks)
+			throws InterruptedException {
+		long hole = CardSet.of(holeCards);
+		long dealt = CardSet.of(community);
+		// built once, the chunks share them
+		AliasTable sampler = null;
+		SystematicSampler strata = null;
+		if (sampling == Sampling.STRATIFIED)
+			strata = (range != null ? range : new OpponentRange()).stratified(
+					hole, dealt);
+		else if (range != null)
+			sampler = range.sampler(hole | dealt);
+		Equity equity = prior != null ? prior : new Equity(0, 0, 0, false);
+		while (equity.getTrials() < maxTrials && !isSettled(equity, thresholds)) {
+			long remaining = maxTrials - equity.getTrials();
+			long round = thresholds == null ? remaining : Math.min(remaining,
+					Math.max(FIRST_ROUND, equity.getTrials()));
+			Equity played = playOut(hole, dealt, opponents, sampler, strata,
+					(int) round, random, pool, chunks);
+			equity = equity.plus(played);
+			if (listener != null)
+				listener.roundPlayed(equity);
+			// a chunk was interrupted
+			if (played.getTrials() < round)
+				break;
+		}
+		return equity;
+	}
+
+	/**
+	 * @param equity
+	 *            deals played so far
+	 * @param thresholds
+	 *            probabilities a decision turns on, or null
+	 * @return true if the {@value #CONFIDENCE_Z} sigma interval for the chance
+	 *         of winning or splitting lies wholly above or below every
+	 *         threshold. Never true before {@value #FIRST_ROUND} deals, or
+	 *         without thresholds.
+	 */
+	public static boolean isSettled(Equity equity, float[] thresholds) {
+		if (thresholds == null
+				|| (!equity.isExact() && equity.getTrials() < FIRST_ROUND))
+			return false;
+		double lower = equity.getLowerBound(CONFIDENCE_Z);
+		double upper = equity.getUpperBound(CONFIDENCE_Z);
+		for (float threshold : thresholds)
+			if (lower <= threshold && threshold <= upper)
+				return false;
+		return true;
+	}
+
+	/**
+	 * One round of deals, split into chunks
+	 */
+	private static Equity playOut(final long hole, final long dealt,
+			final int opponents, final AliasTable sampler,
+			final SystematicSampler strata, int trials, Random random,
+			ExecutorService pool, int chunks) throws InterruptedException {
+		chunks = Math.max(1, Math.min(chunks, trials / MIN_CHUNK));
+
+		List<Future<SimulationKernel>> results = new ArrayList<Future<SimulationKernel>>(
+				chunks);
+		for (int c = 0; c < chunks; c++) {
+			// spread the remainder over the first chunks
+			final int size = trials / chunks + (c < trials % chunks ? 1 : 0);
+			final long seed = random.nextLong();
+			results.add(pool.submit(new Callable<SimulationKernel>() {
+				@Override
+				public SimulationKernel call() {
+					SimulationKernel kernel = new SimulationKernel(hole, dealt,
+							opponents, sampler, strata, new Random(seed));
+					kernel.run(size);
+					return kernel;
+				}
+			}));
+		}
+
+		long played = 0, wins = 0, ties = 0;
+		double share = 0;
+		// of the total number of wins and ties
+		double variance = 0;
+		try {
+			for (Future<SimulationKernel> result : results) {
+				SimulationKernel kernel;
+				try {
+					kernel = result.get();
+				} catch (ExecutionException e) {
+					throw new RuntimeException(e.getCause());
+				}
+				played += kernel.getTrials();
+				wins += kernel.getWins();
+				ties += kernel.getTies();
+				share += kernel.getShare();
+				variance += kernel.getVariance() * kernel.getTrials()
+						* kernel.getTrials();
+			}
+		} finally {
+			// only does anything if we stopped early
+			for (Future<SimulationKernel> result : results)
+				result.cancel(true);
+		}
+		return new Equity(played, wins, ties, share, played == 0 ? 0
+				: variance / played / played, false);
+	}
+}
@@ -0,0 +1,387 @@
+package ecv.poker.ai;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import ecv.poker.card.Board;
+import ecv.poker.card.Card;
+import ecv.poker.card.CardSet;
+
+/**
+ * Picks the action and size with the most chips to win for a decision that
+ * ends the hand's betting: any decision on the river, or a call that puts a
+ * player all in before it. Each candidate is played against how the
+ * opponent is likely to respond, and the best is returned.
+ *
+ * The opponent's hands are worked out once, when the search is made, and
+ * every candidate is scored against the same ones. On the river every live
+ * hand in the range is taken, by weight. Before the river hands and runouts
+ * are drawn from the range, until there are enough or time is up. Each hand
+ * keeps the player's share of its showdown and how strong the opponent
+ * thinks it is on the board they can see.
+ *
+ * The opponent folds the weakest of their hands, by weight as large a share
+ * of them as the bet is of the pot it makes, which is as often as they can
+ * without a bluff showing a profit. They raise by the bet with the
+ * strongest hands, and otherwise call. Checked to, they bet half the pot
+ * with strong hands. The player may then fold or call; the search goes no
+ * deeper. So each response covers a run of hands by strength. Hands are
+ * sorted by strength, with running sums of their weights and showdown
+ * shares, and a candidate is scored from a few binary searches, however many
+ * hands there are.
+ *
+ * Amounts are in chips, and values in chips won from the time of the
+ * decision, so folding is worth 0.
+ */
+public class ExpectimaxSearch {
+
+	/** Sizes tried for bets and raises, as fractions of the pot */
+	public static final float[] DEFAULT_SIZES = { 0.25f, 0.5f, 0.75f, 1f,
+			1.5f };
+	/** Least strength the opponent bets with when checked to */
+	public static final float BET_STRENGTH = 0.65f;
+	/** Least strength the opponent raises with */
+	public static final float RAISE_STRENGTH = 0.9f;
+
+	// how often to look at the clock, in hands drawn
+	private static final int CHECK_INTERVAL = 64;
+
+	// opponent's hands, weakest first by the opponent's view of them
+	private final float[] strength;
+	// weight and weighted showdown share of the hands before each index
+	private final double[] weights, shares;
+	private final int size;
+
+	/**
+	 * Work out the opponent's hands
+	 *
+	 * @param holeCards
+	 *            the player's two hole cards, as a CardSet
+	 * @param community
+	 *            community cards dealt so far, as a CardSet
+	 * @param range
+	 *            what the opponent may hold, or null if all hands are
+	 *            equally likely
+	 * @param samples
+	 *            most hands to draw before the river
+	 * @param deadline
+	 *            {@link System#nanoTime()} to stop drawing hands by
+	 */
+	public ExpectimaxSearch(long holeCards, long community,
+			OpponentRange range, int samples, Random random, long deadline) {
+		if (range == null)
+			range = new OpponentRange();
+		int first = Long.numberOfTrailingZeros(holeCards);
+		int second = 63 - Long.numberOfLeadingZeros(holeCards);
+		Board board = Board.of(CardSet.toList(community));
+		int[] values = OpponentRange.values(community);
+		float[] strengths = OpponentRange.strengths(values, community);
+		long dead = holeCards | community;
+
+		// strength in the high half, so sorting orders hands by it
+		long[] keys;
+		float[] weight;
+		byte[] share;
+		int n = 0;
+		if (board.size() == 5) {
+			keys = new long[OpponentRange.COMBOS];
+			weight = new float[OpponentRange.COMBOS];
+			share = new byte[OpponentRange.COMBOS];
+			int hero = board.evaluate(first, second);
+			for (int c = 0; c < OpponentRange.COMBOS; c++) {
+				float w = range.getWeight(OpponentRange.FIRST[c],
+						OpponentRange.SECOND[c]);
+				if (w == 0 || OpponentRange.isDead(c, dead))
+					continue;
+				weight[n] = w;
+				share[n] = score(hero, values[c]);
+				keys[n] = key(strengths[c], n);
+				n++;
+			}
+		} else {
+			keys = new long[samples];
+			weight = new float[samples];
+			share = new byte[samples];
+			AliasTable hands = range.sampler(dead);
+			int[] deck = new int[52];
+			int cards = 0;
+			for (int i = 0; i < 52; i++)
+				if ((dead & 1L << i) == 0)
+					deck[cards++] = i;
+			while (hands != null && n < samples) {
+				if (n % CHECK_INTERVAL == 0 && n > 0
+						&& (System.nanoTime() > deadline || Thread
+								.currentThread().isInterrupted()))
+					break;
+				int c = hands.sample(random);
+				long taken = dead | 1L << OpponentRange.FIRST[c]
+						| 1L << OpponentRange.SECOND[c];
+				// the rest of the board, by a partial shuffle skipping the
+				// opponent's cards
+				Board runout = board;
+				for (int k = 0; runout.size() < 5; k++) {
+					int j = k + random.nextInt(cards - k);
+					int card = deck[j];
+					deck[j] = deck[k];
+					deck[k] = card;
+					if ((taken & 1L << card) == 0)
+						runout = runout.with(Card.get(card));
+				}
+				weight[n] = 1;
+				share[n] = score(runout.evaluate(first, second),
+						runout.evaluate(OpponentRange.FIRST[c],
+								OpponentRange.SECOND[c]));
+				keys[n] = key(strengths[c], n);
+				n++;
+			}
+		}
+
+		Arrays.sort(keys, 0, n);
+		size = n;
+		strength = new float[n];
+		weights = new double[n + 1];
+		shares = new double[n + 1];
+		for (int i = 0; i < n; i++) {
+			int h = (int) keys[i];
+			strength[i] = Float.intBitsToFloat((int) (keys[i] >>> 32));
+			weights[i + 1] = weights[i] + weight[h];
+			shares[i + 1] = shares[i] + weight[h] * share[h] / 2.0;
+		}
+	}
+
+	/**
+	 * @return the player's share of the pot in halves
+	 */
+	private static byte score(int hero, int villain) {
+		return (byte) (hero > villain ? 2 : hero == villain ? 1 : 0);
+	}
+
+	private static long key(float strength, int hand) {
+		// strengths aren't negative, so their bits order like them
+		return (long) Float.floatToIntBits(strength) << 32 | hand;
+	}
+
+	/**
+	 * @return number of opponent hands every candidate is scored against
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Find the best move
+	 *
+	 * @param pot
+	 *            chips in the pot
+	 * @param toCall
+	 *            the opponent's bet, 0 if there is none
+	 * @param chips
+	 *            the player's chips
+	 * @param opponentChips
+	 *            the opponent's chips, not counting their bet
+	 * @param minBet
+	 *            least a bet can be
+	 * @param checkedTo
+	 *            true if the opponent checked this street, so a check ends
+	 *            it
+	 * @param sizes
+	 *            bets and raises to try, as fractions of the pot after
+	 *            calling, besides all in
+	 * @return the best move, or null if no opponent hand was found
+	 */
+	public Choice search(int pot, int toCall, int chips, int opponentChips,
+			int minBet, boolean checkedTo, float[] sizes) {
+		if (size == 0)
+			return null;
+		Choice best;
+		if (toCall == 0) {
+			best = new Choice(BettingTree.CHECK, 0, check(pot, chips,
+					opponentChips, minBet, checkedTo));
+			int most = Math.min(chips, opponentChips);
+			for (int bet : candidates(pot, minBet, most, sizes))
+				best = better(best, BettingTree.BET, bet, facing(0, size, pot
+						+ bet, bet, bet, opponentChips, chips - bet));
+		} else {
+			best = new Choice(BettingTree.FOLD, 0, 0);
+			int call = Math.min(toCall, chips);
+			best = better(best, BettingTree.CALL, 0, showdown(0, size, pot
+					+ call, call));
+			int most = Math.min(chips - toCall, opponentChips);
+			for (int raise : candidates(pot + toCall, toCall, most, sizes))
+				best = better(best, BettingTree.RAISE, raise, facing(0, size,
+						pot + toCall + raise, toCall + raise, raise,
+						opponentChips, chips - toCall - raise));
+		}
+		return new Choice(best.action, best.amount, best.value
+				/ weights[size]);
+	}
+
+	/**
+	 * @return the candidate amounts, each sizes times the pot held between
+	 *         least and most, then most, in increasing order without
+	 *         repeats; none if most is below least
+	 */
+	private static int[] candidates(int pot, int least, int most,
+			float[] sizes) {
+		if (most <= 0)
+			return new int[0];
+		int[] amounts = new int[sizes.length + 1];
+		int n = 0;
+		for (float size : sizes)
+			amounts[n++] = Math.min(most, Math.max(least, Math.round(size
+					* pot)));
+		amounts[n++] = most;
+		Arrays.sort(amounts, 0, n);
+		int distinct = 0;
+		for (int i = 0; i < n; i++)
+			if (amounts[i] > 0 && (distinct == 0
+					|| amounts[i] != amounts[distinct - 1]))
+				amounts[distinct++] = amounts[i];
+		int[] distinctAmounts = new int[distinct];
+		System.arraycopy(amounts, 0, distinctAmounts, 0, distinct);
+		return distinctAmounts;
+	}
+
+	/**
+	 * @return the choice, or the candidate if it is worth more
+	 */
+	private static Choice better(Choice choice, int action, int amount,
+			double value) {
+		return value > choice.value ? new Choice(action, amount, value)
+				: choice;
+	}
+
+	/**
+	 * @return weighted value of checking, over every hand
+	 */
+	private double check(int pot, int chips, int opponentChips, int minBet,
+			boolean checkedTo) {
+		int bet = Math.min(Math.min(chips, opponentChips), Math.max(minBet,
+				pot / 2));
+		if (checkedTo || bet <= 0)
+			return showdown(0, size, pot, 0);
+		int betting = above(BET_STRENGTH, 0, size);
+		return showdown(0, betting, pot, 0)
+				+ Math.max(0, showdown(betting, size, pot + 2 * bet, bet));
+	}
+
+	/**
+	 * The opponent's response to a bet or raise
+	 *
+	 * @param lo
+	 *            first of the hands to score
+	 * @param hi
+	 *            one past the last
+	 * @param pot
+	 *            chips in the pot, counting the bet
+	 * @param cost
+	 *            chips the player has put in from the decision on
+	 * @param bet
+	 *            what the opponent has to call
+	 * @param opponentChips
+	 *            the opponent's chips
+	 * @param chips
+	 *            the player's chips left
+	 * @return weighted value over the hands
+	 */
+	private double facing(int lo, int hi, double pot, double cost, int bet,
+			int opponentChips, int chips) {
+		int calling = share(bet / pot, lo, hi);
+		// they raise by the bet, if both have the chips
+		int raise = Math.min(bet, Math.min(opponentChips - bet, chips));
+		int raising = raise > 0 ? Math.max(calling, above(RAISE_STRENGTH, lo,
+				hi)) : hi;
+		double folds = (weights[calling] - weights[lo]) * (pot - cost);
+		double calls = showdown(calling, raising, pot + bet, cost);
+		// fold to the raise, or call it: they put in the bet and the raise,
+		// the player the raise
+		double raised = Math.max(-(weights[hi] - weights[raising]) * cost,
+				showdown(raising, hi, pot + bet + 2 * raise, cost + raise));
+		return folds + calls + raised;
+	}
+
+	/**
+	 * @param pot
+	 *            final pot
+	 * @param cost
+	 *            chips the player has put in from the decision on
+	 * @return weighted value of a showdown over the hands from lo to hi
+	 */
+	private double showdown(int lo, int hi, double pot, double cost) {
+		return (shares[hi] - shares[lo]) * pot - (weights[hi] - weights[lo])
+				* cost;
+	}
+
+	/**
+	 * @return first of the hands from lo to hi such that those before it
+	 *         from lo carry at least that share of their weight
+	 */
+	private int share(double share, int lo, int hi) {
+		double target = weights[lo] + share * (weights[hi] - weights[lo]);
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (weights[mid] < target)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * @return first of the hands from lo to hi at least as strong as the
+	 *         threshold, or hi if none are
+	 */
+	private int above(float threshold, int lo, int hi) {
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (strength[mid] < threshold)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * A move and what it is worth
+	 */
+	public static class Choice {
+
+		private final int action;
+		private final int amount;
+		private final double value;
+
+		Choice(int action, int amount, double value) {
+			this.action = action;
+			this.amount = amount;
+			this.value = value;
+		}
+
+		/**
+		 * @return one of the {@link BettingTree} actions
+		 */
+		public int getAction() {
+			return action;
+		}
+
+		/**
+		 * @return chips to bet or raise by, 0 for the other actions
+		 */
+		public int getAmount() {
+			return amount;
+		}
+
+		/**
+		 * @return chips the move is expected to win
+		 */
+		public double getValue() {
+			return value;
+		}
+
+		@Override
+		public String toString() {
+			return action + " " + amount + " for " + value;
+		}
+	}
+}
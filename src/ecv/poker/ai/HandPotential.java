@@ -0,0 +1,339 @@
+package ecv.poker.ai;
+
+import java.util.Arrays;
+
+import ecv.poker.card.Board;
+import ecv.poker.card.Card;
+import ecv.poker.card.CardSet;
+
+/**
+ * Hand strength and potential of every two card hand on a flop or turn,
+ * against every other hand and every runout, after Billings et al.:
+ * <ul>
+ * <li>strength, the share of hands beaten now, ties counting half</li>
+ * <li>positive potential, the chance of ending up ahead when behind now</li>
+ * <li>negative potential, the chance of ending up behind when ahead now</li>
+ * <li>expected strength, strength with both potentials played out</li>
+ * <li>expected squared strength, the mean of the square of the strength on
+ * the river, which is higher for draws than made hands of the same
+ * strength</li>
+ * </ul>
+ *
+ * Rather than play out every opponent hand on every runout for every hand,
+ * each runout is scored once for all hands. Sorting the hands by their score
+ * on the river and sweeping through them, adding each to a Fenwick tree over
+ * their ranks now, counts for every hand at once how many others it is ahead
+ * of or tied with now and at the end. Hands sharing a card are taken out by
+ * inclusion-exclusion, with a tree for each card, the way
+ * {@link PreflopEquityGenerator} counts them.
+ */
+class HandPotential {
+
+	private static final int COMBOS = OpponentRange.COMBOS;
+	// now and at the end, from the hand's side
+	private static final int AHEAD = 0, TIED = 1, BEHIND = 2;
+
+	private final float[] strength = new float[COMBOS];
+	private final float[] positive = new float[COMBOS];
+	private final float[] negative = new float[COMBOS];
+	private final float[] expected = new float[COMBOS];
+	private final float[] squared = new float[COMBOS];
+
+	// hands without a board card, and their scores and dense ranks now
+	private final int[] live;
+	private final int lives;
+	private final int[] now = new int[COMBOS];
+	private final int[] rank = new int[COMBOS];
+	private final int ranks;
+
+	// for each hand, pairs of it and an opponent hand by where they stand
+	// now and at the end, over every runout
+	private final int[] matrix = new int[COMBOS * 9];
+	// sum of the squares of the strengths on each river, and the runouts
+	private final double[] squares = new double[COMBOS];
+	private final int[] runouts = new int[COMBOS];
+
+	// Fenwick trees over ranks now, of every hand played so far on a river
+	// and of those holding each card
+	private final int[] tree;
+	private final int[][] cardTrees = new int[52][];
+	private final int[] cardCounts = new int[52];
+	// per hand on a river, counts of opponent hands below it at the end and
+	// below or level with it now, before and after its group is added
+	private final int[] lowLow, levelLow, lowLevel, levelLevel, groupStart,
+			groupEnd;
+
+	/**
+	 * Work out every hand on the board
+	 *
+	 * @param community
+	 *            the flop or the flop and turn, as a CardSet
+	 */
+	HandPotential(long community) {
+		int size = CardSet.size(community);
+		if (size != 3 && size != 4)
+			throw new IllegalArgumentException(size + " community cards");
+		Board board = Board.of(CardSet.toList(community));
+
+		int[] hands = new int[COMBOS];
+		int n = 0;
+		for (int c = 0; c < COMBOS; c++) {
+			if (OpponentRange.isDead(c, community))
+				continue;
+			hands[n++] = c;
+			now[c] = board.evaluate(OpponentRange.FIRST[c],
+					OpponentRange.SECOND[c]);
+		}
+		live = new int[n];
+		System.arraycopy(hands, 0, live, 0, n);
+		lives = n;
+		OpponentRange.sortByValue(hands, n, now);
+		int r = -1;
+		for (int i = 0; i < n; i++) {
+			if (i == 0 || now[hands[i]] != now[hands[i - 1]])
+				r++;
+			rank[hands[i]] = r;
+		}
+		ranks = r + 1;
+
+		tree = new int[ranks + 1];
+		for (int card = 0; card < 52; card++)
+			cardTrees[card] = new int[ranks + 1];
+		lowLow = new int[COMBOS];
+		levelLow = new int[COMBOS];
+		lowLevel = new int[COMBOS];
+		levelLevel = new int[COMBOS];
+		groupStart = new int[COMBOS];
+		groupEnd = new int[COMBOS];
+
+		countNow(hands, n);
+		int[] values = new int[COMBOS];
+		for (int i = 0; i < 52; i++) {
+			if ((community & 1L << i) != 0)
+				continue;
+			Board turn = board.with(Card.get(i));
+			if (size == 4) {
+				playRiver(turn, 1L << i, hands, values);
+				continue;
+			}
+			for (int j = i + 1; j < 52; j++)
+				if ((community & 1L << j) == 0)
+					playRiver(turn.with(Card.get(j)), 1L << i | 1L << j,
+							hands, values);
+		}
+		finish();
+	}
+
+	/**
+	 * Strength now, from the hands sorted by their score now
+	 */
+	private void countNow(int[] sorted, int n) {
+		int[] holding = new int[52];
+		for (int i = 0; i < n; i++) {
+			holding[OpponentRange.FIRST[sorted[i]]]++;
+			holding[OpponentRange.SECOND[sorted[i]]]++;
+		}
+		int[] below = new int[52], equal = new int[52];
+		int belowTotal = 0, start = 0;
+		while (start < n) {
+			int end = start;
+			while (end < n && now[sorted[end]] == now[sorted[start]])
+				end++;
+			for (int k = start; k < end; k++) {
+				equal[OpponentRange.FIRST[sorted[k]]]++;
+				equal[OpponentRange.SECOND[sorted[k]]]++;
+			}
+			for (int k = start; k < end; k++) {
+				int c = sorted[k];
+				int a = OpponentRange.FIRST[c], b = OpponentRange.SECOND[c];
+				int others = n - holding[a] - holding[b] + 1;
+				int wins = belowTotal - below[a] - below[b];
+				// the hand itself holds both cards, and was taken away twice
+				int ties = end - start - equal[a] - equal[b] + 1;
+				strength[c] = (wins + ties / 2f) / others;
+			}
+			for (int k = start; k < end; k++) {
+				below[OpponentRange.FIRST[sorted[k]]]++;
+				below[OpponentRange.SECOND[sorted[k]]]++;
+				equal[OpponentRange.FIRST[sorted[k]]] = 0;
+				equal[OpponentRange.SECOND[sorted[k]]] = 0;
+			}
+			belowTotal += end - start;
+			start = end;
+		}
+	}
+
+	/**
+	 * Score every hand on one river and add where each stands against every
+	 * other to its matrix
+	 *
+	 * @param river
+	 *            the finished board
+	 * @param runout
+	 *            the cards dealt since now, as a CardSet
+	 */
+	private void playRiver(Board river, long runout, int[] hands, int[] values) {
+		int n = 0;
+		for (int i = 0; i < lives; i++) {
+			int c = live[i];
+			if (OpponentRange.isDead(c, runout))
+				continue;
+			hands[n++] = c;
+			values[c] = river.evaluate(OpponentRange.FIRST[c],
+					OpponentRange.SECOND[c]);
+		}
+		OpponentRange.sortByValue(hands, n, values);
+
+		Arrays.fill(tree, 0);
+		Arrays.fill(cardCounts, 0);
+		for (int[] t : cardTrees)
+			Arrays.fill(t, 0);
+		int start = 0;
+		while (start < n) {
+			int end = start;
+			while (end < n && values[hands[end]] == values[hands[start]])
+				end++;
+			for (int k = start; k < end; k++) {
+				int c = hands[k];
+				lowLow[c] = below(c, rank[c]);
+				levelLow[c] = below(c, rank[c] + 1);
+				groupStart[c] = start - cardCounts[OpponentRange.FIRST[c]]
+						- cardCounts[OpponentRange.SECOND[c]];
+			}
+			for (int k = start; k < end; k++)
+				add(hands[k]);
+			for (int k = start; k < end; k++) {
+				int c = hands[k];
+				// the hand itself is now in, and was taken away twice
+				lowLevel[c] = below(c, rank[c]);
+				levelLevel[c] = below(c, rank[c] + 1) + 1;
+				groupEnd[c] = end - cardCounts[OpponentRange.FIRST[c]]
+						- cardCounts[OpponentRange.SECOND[c]] + 1;
+			}
+			start = end;
+		}
+
+		for (int k = 0; k < n; k++) {
+			int c = hands[k];
+			int others = n - cardCounts[OpponentRange.FIRST[c]]
+					- cardCounts[OpponentRange.SECOND[c]] + 1;
+			int lowNow = below(c, rank[c]);
+			int levelNow = below(c, rank[c] + 1) + 1;
+			int ll = lowLow[c], el = levelLow[c], le = lowLevel[c], ee = levelLevel[c];
+			int lowEnd = groupStart[c], levelEnd = groupEnd[c];
+			int m = c * 9;
+			matrix[m + AHEAD * 3 + AHEAD] += ll;
+			matrix[m + AHEAD * 3 + TIED] += le - ll;
+			matrix[m + AHEAD * 3 + BEHIND] += lowNow - le;
+			matrix[m + TIED * 3 + AHEAD] += el - ll;
+			matrix[m + TIED * 3 + TIED] += ee - le - el + ll;
+			matrix[m + TIED * 3 + BEHIND] += levelNow - lowNow - ee + le;
+			matrix[m + BEHIND * 3 + AHEAD] += lowEnd - el;
+			matrix[m + BEHIND * 3 + TIED] += levelEnd - lowEnd - ee + el;
+			matrix[m + BEHIND * 3 + BEHIND] += others - levelNow - levelEnd
+					+ ee;
+			float end = (lowEnd + (levelEnd - lowEnd) / 2f) / others;
+			squares[c] += end * end;
+			runouts[c]++;
+		}
+	}
+
+	/**
+	 * @return hands added so far ranked below r now, not sharing a card with
+	 *         hand c
+	 */
+	private int below(int c, int r) {
+		return sum(tree, r) - sum(cardTrees[OpponentRange.FIRST[c]], r)
+				- sum(cardTrees[OpponentRange.SECOND[c]], r);
+	}
+
+	private void add(int c) {
+		int r = rank[c];
+		increment(tree, r);
+		increment(cardTrees[OpponentRange.FIRST[c]], r);
+		increment(cardTrees[OpponentRange.SECOND[c]], r);
+		cardCounts[OpponentRange.FIRST[c]]++;
+		cardCounts[OpponentRange.SECOND[c]]++;
+	}
+
+	// sum of the first r entries
+	private static int sum(int[] fenwick, int r) {
+		int s = 0;
+		for (int i = r; i > 0; i -= i & -i)
+			s += fenwick[i];
+		return s;
+	}
+
+	private static void increment(int[] fenwick, int r) {
+		for (int i = r + 1; i < fenwick.length; i += i & -i)
+			fenwick[i]++;
+	}
+
+	/**
+	 * Potentials and expected strengths from the matrices
+	 */
+	private void finish() {
+		for (int i = 0; i < lives; i++) {
+			int c = live[i];
+			int m = c * 9;
+			double[] totals = new double[3];
+			for (int s = 0; s < 3; s++)
+				for (int t = 0; t < 3; t++)
+					totals[s] += matrix[m + s * 3 + t];
+			double up = matrix[m + BEHIND * 3 + AHEAD] + matrix[m + BEHIND * 3
+					+ TIED] / 2.0 + matrix[m + TIED * 3 + AHEAD] / 2.0;
+			double upOf = totals[BEHIND] + totals[TIED] / 2;
+			double down = matrix[m + AHEAD * 3 + BEHIND] + matrix[m + TIED * 3
+					+ BEHIND] / 2.0 + matrix[m + AHEAD * 3 + TIED] / 2.0;
+			double downOf = totals[AHEAD] + totals[TIED] / 2;
+			positive[c] = upOf == 0 ? 0 : (float) (up / upOf);
+			negative[c] = downOf == 0 ? 0 : (float) (down / downOf);
+			expected[c] = strength[c] * (1 - negative[c]) + (1 - strength[c])
+					* positive[c];
+			squared[c] = (float) (squares[c] / runouts[c]);
+		}
+	}
+
+	/**
+	 * @return hands without a board card, numbered as in
+	 *         {@link OpponentRange#indexOf(int, int)}
+	 */
+	int[] getHands() {
+		return live.clone();
+	}
+
+	/**
+	 * @return share of other hands the hand beats now, ties counting half
+	 */
+	float getStrength(int combo) {
+		return strength[combo];
+	}
+
+	/**
+	 * @return chance of ending up ahead or tied when behind or tied now
+	 */
+	float getPositivePotential(int combo) {
+		return positive[combo];
+	}
+
+	/**
+	 * @return chance of ending up behind or tied when ahead or tied now
+	 */
+	float getNegativePotential(int combo) {
+		return negative[combo];
+	}
+
+	/**
+	 * @return strength with the potentials played out
+	 */
+	float getExpectedStrength(int combo) {
+		return expected[combo];
+	}
+
+	/**
+	 * @return mean of the squared strength over every runout
+	 */
+	float getExpectedSquaredStrength(int combo) {
+		return squared[combo];
+	}
+}
@@ -0,0 +1,362 @@
+package ecv.poker.ai;
+
+import java.util.Arrays;
+
+import ecv.poker.card.Board;
+import ecv.poker.card.CardSet;
+
+/**
+ * How likely the opponent is to hold each of the 1,326 two card hands, going
+ * by what they have done this hand. Every hand starts equally likely.
+ *
+ * Each action scales every hand's weight by how strong it is, measured as
+ * the share of other hands it beats: before the flop by its
+ * {@link PreflopEquity}, after by the hand it makes with the board. Bets and
+ * raises favour strong hands most, calls less so, and checks favour weak
+ * hands, since strong ones would often have bet. The model is deliberately
+ * simple; it only has to move the weights the right way.
+ *
+ * Hands are numbered by {@link #indexOf(int, int)} of their card indexes.
+ *
+ * The samplers last drawn from are kept until the weights change, and shared
+ * with copies, so simulations run again against the same range on the same
+ * cards don't build them again.
+ */
+public class OpponentRange {
+
+	/** Number of two card hands */
+	public static final int COMBOS = 1326;
+
+	/** Weight left on the weakest hand by a bet or raise */
+	public static final float BET_FLOOR = 0.2f;
+	/** Weight left on the weakest hand by a call */
+	public static final float CALL_FLOOR = 0.4f;
+	/** Weight left on the strongest hand by a check */
+	public static final float CHECK_FLOOR = 0.5f;
+
+	/** Cards of each hand, first lower than second */
+	static final int[] FIRST = new int[COMBOS], SECOND = new int[COMBOS];
+	// each hand's class equity in millionths, to rank hands before the flop
+	private static final int[] PREFLOP_VALUES = new int[COMBOS];
+	// share of hands each hand's class beats before the flop
+	private static final float[] PREFLOP_STRENGTH = new float[COMBOS];
+
+	static {
+		for (int i = 0, c = 0; i < 52; i++) {
+			for (int j = i + 1; j < 52; j++, c++) {
+				FIRST[c] = i;
+				SECOND[c] = j;
+				PREFLOP_VALUES[c] = Math.round(1e6f
+						* PreflopEquity.EQUITY[0][PreflopEquity.classOf(i, j)]);
+			}
+		}
+		percentiles(PREFLOP_VALUES, CardSet.EMPTY, PREFLOP_STRENGTH);
+	}
+
+	// samplers of every uniform range, since their weights are all the same
+	private static final Samplers UNIFORM_SAMPLERS = new Samplers();
+
+	private final float[] weights = new float[COMBOS];
+	private boolean uniform;
+	// shared with copies until the weights change
+	private Samplers samplers;
+
+	/**
+	 * A range where every hand is equally likely
+	 */
+	public OpponentRange() {
+		Arrays.fill(weights, 1);
+		uniform = true;
+		samplers = UNIFORM_SAMPLERS;
+	}
+
+	public OpponentRange(OpponentRange other) {
+		System.arraycopy(other.weights, 0, weights, 0, COMBOS);
+		uniform = other.uniform;
+		samplers = other.samplers;
+	}
+
+	/**
+	 * @param first
+	 *            index of one card
+	 * @param second
+	 *            index of another
+	 * @return number of the hand made of the two, between 0 and 1325
+	 */
+	public static int indexOf(int first, int second) {
+		int i = Math.min(first, second), j = Math.max(first, second);
+		// hands with a lower first card come before
+		return i * 51 - i * (i - 1) / 2 + j - i - 1;
+	}
+
+	/**
+	 * @return relative weight of the hand, the most likely being 1
+	 */
+	public float getWeight(int first, int second) {
+		return weights[indexOf(first, second)];
+	}
+
+	/**
+	 * @return true if no action has changed the weights
+	 */
+	public boolean isUniform() {
+		return uniform;
+	}
+
+	/**
+	 * The opponent bet or raised
+	 *
+	 * @param community
+	 *            community cards at the time, as a CardSet
+	 */
+	public void bet(long community) {
+		scale(community, BET_FLOOR, true);
+	}
+
+	/**
+	 * @see #bet(long)
+	 */
+	public void call(long community) {
+		scale(community, CALL_FLOOR, true);
+	}
+
+	/**
+	 * @see #bet(long)
+	 */
+	public void check(long community) {
+		scale(community, CHECK_FLOOR, false);
+	}
+
+	/**
+	 * Multiply each weight by floor at one end of the hand strengths and 1
+	 * at the other, then rescale so the largest weight is 1 again
+	 *
+	 * @param strong
+	 *            true if strong hands keep their weight
+	 */
+	private void scale(long community, float floor, boolean strong) {
+		float[] strength = strengths(community);
+		float max = 0;
+		for (int c = 0; c < COMBOS; c++) {
+			float s = strong ? strength[c] : 1 - strength[c];
+			weights[c] *= floor + (1 - floor) * s;
+			max = Math.max(max, weights[c]);
+		}
+		if (max > 0)
+			for (int c = 0; c < COMBOS; c++)
+				weights[c] /= max;
+		uniform = false;
+		// copies keep the samplers of the old weights
+		samplers = new Samplers();
+	}
+
+	/**
+	 * @return share of the other hands each hand beats with the community
+	 *         cards, 0 for hands holding one of them. Not to be written to,
+	 *         it is shared before the flop.
+	 */
+	static float[] strengths(long community) {
+		return strengths(values(community), community);
+	}
+
+	/**
+	 * @param values
+	 *            {@link #values(long)} of the community cards
+	 * @see #strengths(long)
+	 */
+	static float[] strengths(int[] values, long community) {
+		if (community == CardSet.EMPTY)
+			return PREFLOP_STRENGTH;
+		float[] strength = new float[COMBOS];
+		percentiles(values, community, strength);
+		return strength;
+	}
+
+	/**
+	 * @return a value for each hand with the community cards, higher being
+	 *         better, 0 for hands holding one of them. Not to be written
+	 *         to, it is shared before the flop.
+	 */
+	static int[] values(long community) {
+		if (community == CardSet.EMPTY)
+			return PREFLOP_VALUES;
+		Board board = Board.of(CardSet.toList(community));
+		int[] values = new int[COMBOS];
+		for (int c = 0; c < COMBOS; c++)
+			if (!isDead(c, community))
+				values[c] = board.evaluate(FIRST[c], SECOND[c]);
+		return values;
+	}
+
+	/**
+	 * @param values
+	 *            any measure of each hand, higher being better
+	 * @param dead
+	 *            cards that can't be in a hand, as a CardSet
+	 * @param out
+	 *            for each live hand, the share of live hands with lower
+	 *            values, counting ties as half
+	 */
+	private static void percentiles(int[] values, long dead, float[] out) {
+		int[] live = new int[COMBOS];
+		int n = 0;
+		for (int c = 0; c < COMBOS; c++)
+			if (!isDead(c, dead))
+				live[n++] = values[c];
+		Arrays.sort(live, 0, n);
+		for (int c = 0; c < COMBOS; c++) {
+			if (isDead(c, dead))
+				continue;
+			int below = lowerBound(live, n, values[c]);
+			int equal = lowerBound(live, n, values[c] + 1) - below;
+			out[c] = (below + (equal - 1) / 2f) / Math.max(1, n - 1);
+		}
+	}
+
+	// first position in sorted[0, n) holding a value not below key
+	private static int lowerBound(int[] sorted, int n, int key) {
+		int lo = 0, hi = n;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (sorted[mid] < key)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * @return share of hands the hand's class beats before the flop, by
+	 *         heads up equity
+	 */
+	static float preflopStrength(int first, int second) {
+		return PREFLOP_STRENGTH[indexOf(first, second)];
+	}
+
+	static boolean isDead(int combo, long dead) {
+		return (dead & (1L << FIRST[combo] | 1L << SECOND[combo])) != 0;
+	}
+
+	/**
+	 * @return each hand's weight as a whole number from 0 to scale, for
+	 *         counting deals by weight
+	 */
+	int[] scaledWeights(int scale) {
+		int[] scaled = new int[COMBOS];
+		for (int c = 0; c < COMBOS; c++)
+			scaled[c] = Math.round(weights[c] * scale);
+		return scaled;
+	}
+
+	/**
+	 * @param dead
+	 *            cards the opponent can't hold, as a CardSet
+	 * @return a table drawing the hands that don't hold any of them, by
+	 *         weight, or null if they all have weight 0
+	 */
+	AliasTable sampler(long dead) {
+		Built<AliasTable> built = samplers.alias;
+		if (built == null || built.dead != dead) {
+			built = new Built<AliasTable>(dead, CardSet.EMPTY,
+					buildSampler(dead));
+			samplers.alias = built;
+		}
+		return built.sampler;
+	}
+
+	private AliasTable buildSampler(long dead) {
+		int[] combos = new int[COMBOS];
+		float[] live = new float[COMBOS];
+		int n = 0;
+		for (int c = 0; c < COMBOS; c++) {
+			if (weights[c] > 0 && !isDead(c, dead)) {
+				combos[n] = c;
+				live[n++] = weights[c];
+			}
+		}
+		return n == 0 ? null : new AliasTable(combos, live, n);
+	}
+
+	/**
+	 * @param dead
+	 *            cards the opponent can't hold, as a CardSet
+	 * @param community
+	 *            community cards, as a CardSet, to order the hands by
+	 * @return a sampler laying out the hands that don't hold any dead card
+	 *         by weight, weakest first, or null if they all have weight 0
+	 */
+	SystematicSampler stratified(long dead, long community) {
+		Built<SystematicSampler> built = samplers.strata;
+		if (built == null || built.dead != dead
+				|| built.community != community) {
+			built = new Built<SystematicSampler>(dead, community,
+					buildStratified(dead, community));
+			samplers.strata = built;
+		}
+		return built.sampler;
+	}
+
+	private SystematicSampler buildStratified(long dead, long community) {
+		int[] values = values(community);
+		int[] combos = new int[COMBOS];
+		int n = 0;
+		for (int c = 0; c < COMBOS; c++)
+			if (weights[c] > 0 && !isDead(c, dead | community))
+				combos[n++] = c;
+		if (n == 0)
+			return null;
+		sortByValue(combos, n, values);
+
+		float[] live = new float[n];
+		for (int i = 0; i < n; i++)
+			live[i] = weights[combos[i]];
+		return new SystematicSampler(combos, live, n);
+	}
+
+	/**
+	 * Radix sort of the hands by value, 8 bits at a time, since values are
+	 * below 2^24. Hands of equal value stay in the order they were in.
+	 */
+	static void sortByValue(int[] combos, int n, int[] values) {
+		int[] sorted = new int[n];
+		int[] starts = new int[1 << 8];
+		for (int shift = 0; shift < 24; shift += 8) {
+			Arrays.fill(starts, 0);
+			for (int i = 0; i < n; i++)
+				starts[values[combos[i]] >>> shift & 0xff]++;
+			for (int d = 0, sum = 0; d < starts.length; d++) {
+				int count = starts[d];
+				starts[d] = sum;
+				sum += count;
+			}
+			for (int i = 0; i < n; i++)
+				sorted[starts[values[combos[i]] >>> shift & 0xff]++] = combos[i];
+			System.arraycopy(sorted, 0, combos, 0, n);
+		}
+	}
+
+	/**
+	 * The samplers last built from one set of weights. Any thread may build
+	 * one and replace the last, since they are immutable.
+	 */
+	private static class Samplers {
+		volatile Built<AliasTable> alias;
+		volatile Built<SystematicSampler> strata;
+	}
+
+	/**
+	 * A sampler, null if every hand had weight 0, and the cards it was
+	 * built for
+	 */
+	private static class Built<T> {
+		final long dead, community;
+		final T sampler;
+
+		Built(long dead, long community, T sampler) {
+			this.dead = dead;
+			this.community = community;
+			this.sampler = sampler;
+		}
+	}
+}
@@ -0,0 +1,465 @@
+package ecv.poker.ai;
+
+import java.util.List;
+
+import ecv.poker.card.Card;
+
+/**
+ * Precomputed chances of each starting hand winning against random hands.
+ *
+ * Before the flop only the ranks of the hole cards and whether they are suited
+ * matter, so the 1326 possible starting hands fall into 169 classes: 13 pairs,
+ * 78 suited and 78 offsuit hands. A class is numbered like a cell of a 13x13
+ * grid of ranks (0 for a deuce to 12 for an ace): pairs on the diagonal
+ * high * 13 + high, suited hands at high * 13 + low and offsuit hands at
+ * low * 13 + high.
+ *
+ * Heads-up values are exact, enumerated over every opponent hand and board.
+ * Values against 2 or more opponents were simulated, 500,000 deals per class,
+ * so they are within about 0.002 of the exact value. The tables are generated
+ * by {@link PreflopEquityGenerator}.
+ */
+public class PreflopEquity {
+
+	public static final int CLASSES = 169;
+	/** Most opponents there are tables for */
+	public static final int MAX_OPPONENTS = 4;
+
+	/** Chance of beating every opponent, [opponents - 1][class] */
+	static final float[][] WIN = { {
+			0.493852f, 0.292394f, 0.301174f, 0.311938f, 0.310787f, 0.317103f,
+			0.340868f, 0.365170f, 0.392391f, 0.420493f, 0.451099f, 0.484228f,
+			0.529473f, 0.330920f, 0.528392f, 0.320663f, 0.331650f, 0.330698f,
+			0.337179f, 0.347499f, 0.374279f, 0.401552f, 0.429668f, 0.460249f,
+			0.493313f, 0.538553f, 0.339179f, 0.357274f, 0.562565f, 0.350748f,
+			0.350030f, 0.356617f, 0.367092f, 0.380858f, 0.410554f, 0.438687f,
+			0.469248f, 0.502252f, 0.547329f, 0.349295f, 0.367587f, 0.385325f,
+			0.596400f, 0.370128f, 0.376747f, 0.387413f, 0.401367f, 0.418575f,
+			0.449046f, 0.479590f, 0.512539f, 0.557423f, 0.348375f, 0.366854f,
+			0.384810f, 0.403482f, 0.627000f, 0.396538f, 0.406966f, 0.421034f,
+			0.438481f, 0.457135f, 0.489965f, 0.522971f, 0.558703f, 0.354398f,
+			0.373036f, 0.391089f, 0.409790f, 0.428295f, 0.657254f, 0.426933f,
+			0.440721f, 0.458298f, 0.477261f, 0.499044f, 0.534173f, 0.571695f,
+			0.376792f, 0.382826f, 0.401028f, 0.419905f, 0.438185f, 0.456841f,
+			0.687174f, 0.460683f, 0.478181f, 0.497137f, 0.519305f, 0.544316f,
+			0.583742f, 0.399730f, 0.408068f, 0.414071f, 0.433127f, 0.451512f,
+			0.469903f, 0.488563f, 0.716657f, 0.498157f, 0.516394f, 0.538620f,
+			0.564076f, 0.594497f, 0.425402f, 0.433785f, 0.442041f, 0.449390f,
+			0.468002f, 0.486512f, 0.505091f, 0.523769f, 0.746603f, 0.538260f,
+			0.559474f, 0.584943f, 0.615681f, 0.452024f, 0.460418f, 0.468687f,
+			0.478209f, 0.485742f, 0.504545f, 0.523117f, 0.541120f, 0.561548f,
+			0.771530f, 0.569062f, 0.594412f, 0.625352f, 0.481018f, 0.489384f,
+			0.497630f, 0.507134f, 0.516792f, 0.525235f, 0.544170f, 0.562228f,
+			0.581706f, 0.590709f, 0.796320f, 0.604323f, 0.635088f, 0.512399f,
+			0.520701f, 0.528888f, 0.538339f, 0.548047f, 0.558463f, 0.567904f,
+			0.586381f, 0.605871f, 0.614766f, 0.624084f, 0.821173f, 0.644694f,
+			0.555063f, 0.563351f, 0.571378f, 0.580641f, 0.581789f, 0.593867f,
+			0.605078f, 0.615097f, 0.634889f, 0.643976f, 0.653137f, 0.662196f,
+			0.849319f }, {
+			0.302894f, 0.183708f, 0.193084f, 0.200088f, 0.191772f, 0.191180f,
+			0.202366f, 0.213874f, 0.231530f, 0.247184f, 0.268020f, 0.291864f,
+			0.332178f, 0.225998f, 0.331870f, 0.210658f, 0.219390f, 0.211034f,
+			0.209804f, 0.208092f, 0.222876f, 0.238732f, 0.255740f, 0.276014f,
+			0.301770f, 0.342434f, 0.233172f, 0.249626f, 0.364480f, 0.238098f,
+			0.231800f, 0.229240f, 0.225890f, 0.227902f, 0.246108f, 0.264304f,
+			0.284826f, 0.310978f, 0.351304f, 0.240228f, 0.258134f, 0.274524f,
+			0.395890f, 0.251390f, 0.249826f, 0.246874f, 0.247722f, 0.252332f,
+			0.272876f, 0.293720f, 0.319334f, 0.360352f, 0.233562f, 0.252996f,
+			0.268936f, 0.286392f, 0.427568f, 0.268704f, 0.267974f, 0.267810f,
+			0.273556f, 0.280618f, 0.304434f, 0.330706f, 0.359122f, 0.230778f,
+			0.247964f, 0.266804f, 0.285808f, 0.302942f, 0.460670f, 0.289018f,
+			0.291544f, 0.296276f, 0.304574f, 0.312622f, 0.343264f, 0.372790f,
+			0.242652f, 0.248170f, 0.265808f, 0.283110f, 0.302974f, 0.323664f,
+			0.496072f, 0.312096f, 0.319320f, 0.325302f, 0.336394f, 0.353408f,
+			0.388128f, 0.256062f, 0.261602f, 0.267566f, 0.284462f, 0.306188f,
+			0.326010f, 0.345406f, 0.533434f, 0.342418f, 0.349678f, 0.360774f,
+			0.377964f, 0.401818f, 0.270992f, 0.277854f, 0.284730f, 0.291436f,
+			0.309670f, 0.332452f, 0.351942f, 0.373532f, 0.572364f, 0.377526f,
+			0.389152f, 0.405094f, 0.428516f, 0.285818f, 0.293328f, 0.301312f,
+			0.310134f, 0.316728f, 0.336942f, 0.358510f, 0.381230f, 0.406804f,
+			0.608592f, 0.402950f, 0.419572f, 0.443176f, 0.307210f, 0.314122f,
+			0.322246f, 0.331176f, 0.339514f, 0.347812f, 0.371020f, 0.393896f,
+			0.418216f, 0.431372f, 0.649022f, 0.433222f, 0.457082f, 0.330158f,
+			0.340308f, 0.347288f, 0.356408f, 0.366732f, 0.376902f, 0.384850f,
+			0.408954f, 0.435078f, 0.447616f, 0.460574f, 0.685886f, 0.473098f,
+			0.369228f, 0.377712f, 0.385074f, 0.393580f, 0.393600f, 0.405420f,
+			0.419946f, 0.431012f, 0.458036f, 0.470486f, 0.484822f, 0.499024f,
+			0.732290f }, {
+			0.215974f, 0.128954f, 0.136970f, 0.142276f, 0.135122f, 0.130968f,
+			0.138356f, 0.148140f, 0.158650f, 0.171500f, 0.186306f, 0.205386f,
+			0.236098f, 0.171202f, 0.236614f, 0.152544f, 0.159008f, 0.151220f,
+			0.147276f, 0.144084f, 0.153958f, 0.166328f, 0.177504f, 0.192256f,
+			0.212088f, 0.244580f, 0.178430f, 0.192002f, 0.260220f, 0.175976f,
+			0.169572f, 0.165106f, 0.161896f, 0.158356f, 0.171502f, 0.184294f,
+			0.198524f, 0.219410f, 0.251414f, 0.184010f, 0.199874f, 0.215006f,
+			0.284968f, 0.185312f, 0.183322f, 0.179926f, 0.176770f, 0.177506f,
+			0.190910f, 0.206406f, 0.225622f, 0.260210f, 0.177060f, 0.192432f,
+			0.209704f, 0.224096f, 0.312074f, 0.199770f, 0.198728f, 0.196448f,
+			0.196758f, 0.198866f, 0.216706f, 0.234724f, 0.256950f, 0.173284f,
+			0.188950f, 0.204962f, 0.221340f, 0.237838f, 0.341656f, 0.216342f,
+			0.216990f, 0.217624f, 0.218376f, 0.223832f, 0.245896f, 0.269428f,
+			0.181218f, 0.185664f, 0.202450f, 0.218986f, 0.236428f, 0.252284f,
+			0.371698f, 0.237064f, 0.240840f, 0.241774f, 0.246838f, 0.256588f,
+			0.281040f, 0.191130f, 0.195296f, 0.199426f, 0.216668f, 0.235142f,
+			0.252360f, 0.272210f, 0.407834f, 0.263562f, 0.264248f, 0.270150f,
+			0.280840f, 0.294654f, 0.201948f, 0.207016f, 0.213504f, 0.218836f,
+			0.234394f, 0.255564f, 0.276406f, 0.296950f, 0.449982f, 0.293550f,
+			0.301290f, 0.310816f, 0.326312f, 0.213106f, 0.218820f, 0.224282f,
+			0.230784f, 0.236916f, 0.255958f, 0.277826f, 0.301060f, 0.326932f,
+			0.488424f, 0.314792f, 0.325374f, 0.341270f, 0.228332f, 0.233376f,
+			0.238950f, 0.245876f, 0.254726f, 0.263220f, 0.284692f, 0.305600f,
+			0.333732f, 0.345678f, 0.532042f, 0.341036f, 0.357822f, 0.246860f,
+			0.252368f, 0.259376f, 0.264980f, 0.274346f, 0.283220f, 0.293076f,
+			0.315950f, 0.342726f, 0.356290f, 0.371410f, 0.581078f, 0.376242f,
+			0.276324f, 0.285000f, 0.291824f, 0.297604f, 0.295032f, 0.305530f,
+			0.318526f, 0.329846f, 0.359648f, 0.372730f, 0.387142f, 0.405590f,
+			0.635150f }, {
+			0.176014f, 0.100390f, 0.105838f, 0.110584f, 0.102372f, 0.097044f,
+			0.103378f, 0.110224f, 0.119758f, 0.128680f, 0.139998f, 0.155542f,
+			0.182100f, 0.141508f, 0.187272f, 0.119436f, 0.125184f, 0.117430f,
+			0.111474f, 0.107086f, 0.113936f, 0.123704f, 0.134248f, 0.146372f,
+			0.161196f, 0.187912f, 0.147024f, 0.158680f, 0.202706f, 0.137622f,
+			0.132548f, 0.126018f, 0.121660f, 0.118544f, 0.129708f, 0.138236f,
+			0.150948f, 0.166784f, 0.194870f, 0.151796f, 0.164490f, 0.177398f,
+			0.221496f, 0.146120f, 0.140952f, 0.136992f, 0.133840f, 0.133456f,
+			0.144522f, 0.157058f, 0.171582f, 0.201948f, 0.144642f, 0.157856f,
+			0.172600f, 0.184686f, 0.242266f, 0.158144f, 0.154828f, 0.151808f,
+			0.150840f, 0.148764f, 0.164066f, 0.180278f, 0.196460f, 0.139394f,
+			0.153582f, 0.167374f, 0.181170f, 0.195930f, 0.263638f, 0.171578f,
+			0.169938f, 0.169618f, 0.168628f, 0.170490f, 0.188566f, 0.206846f,
+			0.145252f, 0.149436f, 0.163894f, 0.177510f, 0.192636f, 0.208732f,
+			0.291254f, 0.188072f, 0.190524f, 0.189430f, 0.193298f, 0.198408f,
+			0.218040f, 0.153282f, 0.156676f, 0.160172f, 0.174292f, 0.191532f,
+			0.208654f, 0.224814f, 0.323302f, 0.212524f, 0.211682f, 0.215662f,
+			0.222106f, 0.231576f, 0.162646f, 0.165954f, 0.170860f, 0.173978f,
+			0.189624f, 0.208060f, 0.227106f, 0.247852f, 0.360216f, 0.240418f,
+			0.245428f, 0.250954f, 0.261408f, 0.172538f, 0.175604f, 0.180700f,
+			0.185864f, 0.190226f, 0.208046f, 0.228244f, 0.247148f, 0.274102f,
+			0.398856f, 0.258740f, 0.266754f, 0.276324f, 0.185108f, 0.187138f,
+			0.192796f, 0.197874f, 0.204372f, 0.211668f, 0.231718f, 0.252182f,
+			0.278878f, 0.290144f, 0.444944f, 0.281678f, 0.293518f, 0.199062f,
+			0.204528f, 0.208834f, 0.214336f, 0.220214f, 0.228810f, 0.237808f,
+			0.259000f, 0.286908f, 0.299212f, 0.315104f, 0.495812f, 0.314150f,
+			0.223774f, 0.231260f, 0.235074f, 0.242470f, 0.238012f, 0.246562f,
+			0.257844f, 0.268258f, 0.297464f, 0.309968f, 0.327452f, 0.344586f,
+			0.557674f } };
+	/** Chance of tying for the best hand, [opponents - 1][class] */
+	static final float[][] TIE = { {
+			0.018977f, 0.061276f, 0.061647f, 0.061817f, 0.059930f, 0.057467f,
+			0.054817f, 0.051618f, 0.048585f, 0.045984f, 0.043710f, 0.041719f,
+			0.039625f, 0.057849f, 0.017077f, 0.061592f, 0.061996f, 0.060157f,
+			0.057687f, 0.054679f, 0.051832f, 0.048787f, 0.046176f, 0.043891f,
+			0.041889f, 0.039786f, 0.058221f, 0.058292f, 0.015326f, 0.061609f,
+			0.060150f, 0.057762f, 0.054752f, 0.051705f, 0.048974f, 0.046353f,
+			0.044058f, 0.042046f, 0.039936f, 0.058396f, 0.058686f, 0.058418f,
+			0.013698f, 0.058631f, 0.056746f, 0.053725f, 0.050648f, 0.047869f,
+			0.045525f, 0.043222f, 0.041201f, 0.039085f, 0.056628f, 0.056963f,
+			0.057047f, 0.055704f, 0.011694f, 0.053379f, 0.050886f, 0.047759f,
+			0.044878f, 0.042615f, 0.040551f, 0.038523f, 0.036243f, 0.054321f,
+			0.054648f, 0.054808f, 0.053931f, 0.050846f, 0.010213f, 0.047150f,
+			0.044515f, 0.041567f, 0.039116f, 0.037226f, 0.035400f, 0.033434f,
+			0.051848f, 0.051819f, 0.051977f, 0.051091f, 0.048495f, 0.045045f,
+			0.008913f, 0.040574f, 0.038063f, 0.035530f, 0.033385f, 0.031771f,
+			0.029969f, 0.048844f, 0.049149f, 0.049097f, 0.048183f, 0.045542f,
+			0.042549f, 0.038890f, 0.007832f, 0.034320f, 0.032236f, 0.029969f,
+			0.028086f, 0.026461f, 0.045986f, 0.046281f, 0.046528f, 0.045545f,
+			0.042810f, 0.039756f, 0.036504f, 0.033013f, 0.007030f, 0.028434f,
+			0.026868f, 0.024893f, 0.023071f, 0.043514f, 0.043797f, 0.044036f,
+			0.043318f, 0.040633f, 0.037406f, 0.034080f, 0.031010f, 0.027462f,
+			0.006330f, 0.024569f, 0.022549f, 0.020562f, 0.041344f, 0.041617f,
+			0.041845f, 0.041119f, 0.038666f, 0.035576f, 0.032014f, 0.028831f,
+			0.025938f, 0.023767f, 0.005863f, 0.020471f, 0.018461f, 0.039436f,
+			0.039697f, 0.039916f, 0.039181f, 0.036721f, 0.033828f, 0.030439f,
+			0.027007f, 0.024030f, 0.021816f, 0.019840f, 0.005567f, 0.017014f,
+			0.037453f, 0.037705f, 0.037917f, 0.037176f, 0.034539f, 0.031946f,
+			0.028720f, 0.025431f, 0.022269f, 0.019901f, 0.017903f, 0.016500f,
+			0.005436f }, {
+			0.011482f, 0.032356f, 0.032750f, 0.034356f, 0.034220f, 0.034032f,
+			0.036056f, 0.036850f, 0.037638f, 0.038398f, 0.038830f, 0.040326f,
+			0.041868f, 0.030992f, 0.011238f, 0.034718f, 0.035282f, 0.035104f,
+			0.035680f, 0.036442f, 0.037086f, 0.038804f, 0.039182f, 0.039908f,
+			0.041458f, 0.042682f, 0.031362f, 0.032932f, 0.010642f, 0.036028f,
+			0.035414f, 0.036400f, 0.036638f, 0.037572f, 0.039128f, 0.040168f,
+			0.040732f, 0.041904f, 0.043284f, 0.033068f, 0.033896f, 0.034796f,
+			0.010262f, 0.036472f, 0.036796f, 0.037732f, 0.038082f, 0.038816f,
+			0.039986f, 0.041164f, 0.042344f, 0.043780f, 0.032722f, 0.033882f,
+			0.034382f, 0.034922f, 0.009608f, 0.035856f, 0.036450f, 0.037242f,
+			0.037912f, 0.038530f, 0.039072f, 0.040016f, 0.040742f, 0.033054f,
+			0.033830f, 0.035136f, 0.035018f, 0.034624f, 0.008830f, 0.035132f,
+			0.035552f, 0.035656f, 0.035588f, 0.036244f, 0.037770f, 0.038948f,
+			0.034564f, 0.034526f, 0.035444f, 0.036650f, 0.035216f, 0.032886f,
+			0.008390f, 0.033404f, 0.033608f, 0.034162f, 0.034030f, 0.034608f,
+			0.035306f, 0.034868f, 0.035672f, 0.035984f, 0.036178f, 0.035390f,
+			0.033978f, 0.031914f, 0.008010f, 0.031630f, 0.031448f, 0.030768f,
+			0.030600f, 0.031264f, 0.035786f, 0.036402f, 0.037278f, 0.037046f,
+			0.036762f, 0.034612f, 0.032874f, 0.030148f, 0.007658f, 0.028246f,
+			0.028380f, 0.027934f, 0.028518f, 0.036262f, 0.037290f, 0.038368f,
+			0.038472f, 0.036816f, 0.034838f, 0.031930f, 0.030452f, 0.027940f,
+			0.007264f, 0.025720f, 0.025206f, 0.025268f, 0.037270f, 0.038276f,
+			0.038708f, 0.038872f, 0.037548f, 0.034980f, 0.032144f, 0.029854f,
+			0.027156f, 0.024976f, 0.006374f, 0.022552f, 0.022162f, 0.038920f,
+			0.039432f, 0.039792f, 0.039772f, 0.037972f, 0.036164f, 0.032774f,
+			0.029588f, 0.026806f, 0.024864f, 0.021946f, 0.005884f, 0.019642f,
+			0.040052f, 0.040552f, 0.041396f, 0.041212f, 0.039190f, 0.037180f,
+			0.034002f, 0.030414f, 0.027228f, 0.023966f, 0.021190f, 0.019518f,
+			0.005752f }, {
+			0.008442f, 0.024710f, 0.025978f, 0.027632f, 0.027146f, 0.027690f,
+			0.029340f, 0.029670f, 0.031820f, 0.032392f, 0.033802f, 0.036276f,
+			0.039526f, 0.023890f, 0.008818f, 0.027256f, 0.028526f, 0.028764f,
+			0.028670f, 0.029880f, 0.031108f, 0.032786f, 0.033734f, 0.034554f,
+			0.037328f, 0.041088f, 0.024838f, 0.026090f, 0.009110f, 0.030366f,
+			0.029960f, 0.030446f, 0.030998f, 0.031718f, 0.034126f, 0.034876f,
+			0.036252f, 0.038350f, 0.042102f, 0.026546f, 0.027346f, 0.029450f,
+			0.009280f, 0.030794f, 0.031154f, 0.031902f, 0.032568f, 0.034296f,
+			0.035794f, 0.036948f, 0.038816f, 0.042044f, 0.026188f, 0.027174f,
+			0.028516f, 0.029822f, 0.008670f, 0.030768f, 0.031260f, 0.032006f,
+			0.033436f, 0.034036f, 0.035248f, 0.037238f, 0.040308f, 0.026664f,
+			0.028096f, 0.029352f, 0.030512f, 0.029686f, 0.008460f, 0.030042f,
+			0.030706f, 0.032338f, 0.032950f, 0.033680f, 0.035858f, 0.038460f,
+			0.027726f, 0.028058f, 0.029498f, 0.030938f, 0.029848f, 0.029938f,
+			0.008186f, 0.030272f, 0.031146f, 0.030904f, 0.031762f, 0.032798f,
+			0.036008f, 0.029046f, 0.029862f, 0.030626f, 0.031670f, 0.031086f,
+			0.030464f, 0.029178f, 0.008016f, 0.029768f, 0.029472f, 0.029612f,
+			0.030372f, 0.032332f, 0.030330f, 0.030962f, 0.032676f, 0.032440f,
+			0.031998f, 0.030746f, 0.029766f, 0.028756f, 0.008330f, 0.028154f,
+			0.028010f, 0.028464f, 0.029826f, 0.030806f, 0.032518f, 0.032678f,
+			0.034244f, 0.032390f, 0.031366f, 0.029596f, 0.028458f, 0.027392f,
+			0.007620f, 0.025458f, 0.025382f, 0.026624f, 0.032082f, 0.033248f,
+			0.034736f, 0.034634f, 0.034426f, 0.031980f, 0.030374f, 0.028640f,
+			0.027244f, 0.024688f, 0.006766f, 0.022968f, 0.023516f, 0.034502f,
+			0.035314f, 0.036526f, 0.037082f, 0.036062f, 0.034564f, 0.031462f,
+			0.029042f, 0.027390f, 0.024342f, 0.021542f, 0.005932f, 0.020668f,
+			0.037864f, 0.038656f, 0.039616f, 0.040272f, 0.037714f, 0.037036f,
+			0.034810f, 0.031398f, 0.028534f, 0.025776f, 0.022706f, 0.019940f,
+			0.005794f }, {
+			0.006410f, 0.019962f, 0.022028f, 0.023854f, 0.023534f, 0.024328f,
+			0.025574f, 0.026304f, 0.028828f, 0.028920f, 0.030438f, 0.032568f,
+			0.036810f, 0.019336f, 0.007122f, 0.023950f, 0.025756f, 0.025164f,
+			0.025820f, 0.027318f, 0.028534f, 0.029702f, 0.029992f, 0.031820f,
+			0.033924f, 0.037702f, 0.021530f, 0.023050f, 0.007812f, 0.027634f,
+			0.027050f, 0.027206f, 0.027942f, 0.029678f, 0.031926f, 0.032250f,
+			0.033108f, 0.035432f, 0.039634f, 0.022832f, 0.024800f, 0.026110f,
+			0.008744f, 0.028202f, 0.028606f, 0.028838f, 0.030084f, 0.032686f,
+			0.033028f, 0.034602f, 0.036210f, 0.040516f, 0.022488f, 0.023750f,
+			0.025882f, 0.027030f, 0.008492f, 0.028328f, 0.028994f, 0.029938f,
+			0.031352f, 0.032116f, 0.033520f, 0.035370f, 0.038350f, 0.023290f,
+			0.024910f, 0.025938f, 0.027962f, 0.027714f, 0.008238f, 0.028596f,
+			0.029152f, 0.030636f, 0.030814f, 0.031596f, 0.033592f, 0.037364f,
+			0.024726f, 0.025434f, 0.026520f, 0.028396f, 0.027858f, 0.027726f,
+			0.008148f, 0.028294f, 0.029954f, 0.030050f, 0.030308f, 0.031802f,
+			0.035236f, 0.024934f, 0.027032f, 0.027376f, 0.028736f, 0.028474f,
+			0.027588f, 0.027394f, 0.008310f, 0.029580f, 0.028876f, 0.028442f,
+			0.028996f, 0.031696f, 0.027322f, 0.028696f, 0.029890f, 0.030928f,
+			0.029624f, 0.029490f, 0.028666f, 0.027738f, 0.008940f, 0.028348f,
+			0.028066f, 0.028176f, 0.030312f, 0.027806f, 0.029702f, 0.030640f,
+			0.031898f, 0.030940f, 0.029498f, 0.028272f, 0.027670f, 0.027012f,
+			0.008138f, 0.025296f, 0.025476f, 0.027410f, 0.028742f, 0.030632f,
+			0.031796f, 0.033158f, 0.031872f, 0.030348f, 0.028836f, 0.027402f,
+			0.026976f, 0.024664f, 0.006956f, 0.022510f, 0.023864f, 0.031076f,
+			0.032622f, 0.033962f, 0.034824f, 0.034206f, 0.032596f, 0.030046f,
+			0.028006f, 0.027320f, 0.024566f, 0.022108f, 0.006038f, 0.020574f,
+			0.034832f, 0.036352f, 0.038374f, 0.038836f, 0.036948f, 0.035712f,
+			0.033502f, 0.030448f, 0.028624f, 0.025880f, 0.023040f, 0.019578f,
+			0.005582f } };
+	/** Expected share of the pot, [opponents - 1][class] */
+	static final float[][] EQUITY = { {
+			0.503340f, 0.323032f, 0.331998f, 0.342846f, 0.340751f, 0.345836f,
+			0.368277f, 0.390979f, 0.416683f, 0.443485f, 0.472954f, 0.505087f,
+			0.549286f, 0.359844f, 0.536931f, 0.351459f, 0.362648f, 0.360776f,
+			0.366023f, 0.374838f, 0.400195f, 0.425946f, 0.452755f, 0.482194f,
+			0.514257f, 0.558446f, 0.368290f, 0.386419f, 0.570228f, 0.381553f,
+			0.380105f, 0.385498f, 0.394468f, 0.406711f, 0.435041f, 0.461864f,
+			0.491277f, 0.523275f, 0.567297f, 0.378493f, 0.396930f, 0.414534f,
+			0.603249f, 0.399443f, 0.405120f, 0.414275f, 0.426691f, 0.442510f,
+			0.471809f, 0.501201f, 0.533140f, 0.576965f, 0.376690f, 0.395336f,
+			0.413333f, 0.431334f, 0.632847f, 0.423227f, 0.432409f, 0.444913f,
+			0.460920f, 0.478443f, 0.510240f, 0.542233f, 0.576825f, 0.381559f,
+			0.400359f, 0.418493f, 0.436755f, 0.453718f, 0.662360f, 0.450508f,
+			0.462978f, 0.479081f, 0.496819f, 0.517657f, 0.551874f, 0.588412f,
+			0.402716f, 0.408735f, 0.427016f, 0.445450f, 0.462433f, 0.479363f,
+			0.691630f, 0.480970f, 0.497213f, 0.514902f, 0.535998f, 0.560202f,
+			0.598726f, 0.424152f, 0.432643f, 0.438620f, 0.457219f, 0.474283f,
+			0.491177f, 0.508008f, 0.720573f, 0.515317f, 0.532512f, 0.553604f,
+			0.578119f, 0.607728f, 0.448395f, 0.456925f, 0.465305f, 0.472163f,
+			0.489407f, 0.506390f, 0.523344f, 0.540275f, 0.750118f, 0.552477f,
+			0.572908f, 0.597389f, 0.627217f, 0.473782f, 0.482316f, 0.490705f,
+			0.499868f, 0.506059f, 0.523248f, 0.540156f, 0.556625f, 0.575279f,
+			0.774695f, 0.581347f, 0.605687f, 0.635633f, 0.501690f, 0.510192f,
+			0.518553f, 0.527694f, 0.536126f, 0.543023f, 0.560177f, 0.576643f,
+			0.594676f, 0.602592f, 0.799252f, 0.614558f, 0.644318f, 0.532117f,
+			0.540550f, 0.548846f, 0.557929f, 0.566407f, 0.575377f, 0.583124f,
+			0.599885f, 0.617886f, 0.625673f, 0.634004f, 0.823957f, 0.653201f,
+			0.573789f, 0.582203f, 0.590336f, 0.599229f, 0.599058f, 0.609840f,
+			0.619438f, 0.627812f, 0.646024f, 0.653927f, 0.662089f, 0.670446f,
+			0.852037f }, {
+			0.306998f, 0.197533f, 0.207199f, 0.214971f, 0.206646f, 0.206147f,
+			0.218387f, 0.230446f, 0.248706f, 0.264846f, 0.286105f, 0.310864f,
+			0.352165f, 0.239306f, 0.336007f, 0.225734f, 0.234769f, 0.226379f,
+			0.225503f, 0.224271f, 0.239587f, 0.256458f, 0.273804f, 0.294625f,
+			0.321338f, 0.362830f, 0.246730f, 0.263923f, 0.368507f, 0.253916f,
+			0.247372f, 0.245340f, 0.242236f, 0.244859f, 0.264064f, 0.282870f,
+			0.303880f, 0.330793f, 0.372028f, 0.254631f, 0.272908f, 0.289764f,
+			0.399891f, 0.267437f, 0.266134f, 0.263741f, 0.264960f, 0.270124f,
+			0.291421f, 0.313007f, 0.339354f, 0.381307f, 0.247836f, 0.267803f,
+			0.284022f, 0.301789f, 0.431402f, 0.284597f, 0.284303f, 0.284663f,
+			0.290913f, 0.298509f, 0.322737f, 0.349644f, 0.378642f, 0.245291f,
+			0.262828f, 0.282390f, 0.301314f, 0.318305f, 0.464228f, 0.304763f,
+			0.307556f, 0.312568f, 0.320991f, 0.329579f, 0.361124f, 0.391423f,
+			0.257997f, 0.263498f, 0.281583f, 0.299489f, 0.318717f, 0.338372f,
+			0.499514f, 0.327117f, 0.334621f, 0.341033f, 0.352240f, 0.369677f,
+			0.404991f, 0.271687f, 0.277657f, 0.283786f, 0.300784f, 0.322155f,
+			0.341289f, 0.359745f, 0.536739f, 0.356811f, 0.364087f, 0.375007f,
+			0.392273f, 0.416674f, 0.287317f, 0.294446f, 0.301770f, 0.308377f,
+			0.326470f, 0.348254f, 0.366841f, 0.387173f, 0.575619f, 0.390443f,
+			0.402227f, 0.418101f, 0.442015f, 0.302492f, 0.310537f, 0.319021f,
+			0.327952f, 0.333755f, 0.352976f, 0.373154f, 0.395121f, 0.419523f,
+			0.611649f, 0.414705f, 0.431222f, 0.455064f, 0.324560f, 0.331943f,
+			0.340329f, 0.349349f, 0.357064f, 0.364118f, 0.385943f, 0.407671f,
+			0.430689f, 0.442772f, 0.651658f, 0.443586f, 0.467448f, 0.348455f,
+			0.358885f, 0.366051f, 0.375189f, 0.384638f, 0.393941f, 0.400204f,
+			0.422747f, 0.447503f, 0.459068f, 0.470595f, 0.688273f, 0.482208f,
+			0.388330f, 0.397071f, 0.404834f, 0.413283f, 0.412326f, 0.423130f,
+			0.436121f, 0.445403f, 0.470868f, 0.481719f, 0.494678f, 0.508027f,
+			0.734626f }, {
+			0.218545f, 0.139381f, 0.148064f, 0.154144f, 0.146825f, 0.142971f,
+			0.151162f, 0.161230f, 0.172867f, 0.186040f, 0.201642f, 0.222058f,
+			0.254589f, 0.181321f, 0.239514f, 0.164235f, 0.171399f, 0.163730f,
+			0.159789f, 0.157207f, 0.167780f, 0.181000f, 0.192721f, 0.207991f,
+			0.229297f, 0.263857f, 0.189025f, 0.203232f, 0.263419f, 0.189279f,
+			0.182683f, 0.178505f, 0.175573f, 0.172409f, 0.186846f, 0.200135f,
+			0.215113f, 0.237123f, 0.271188f, 0.195449f, 0.211720f, 0.227890f,
+			0.288394f, 0.198902f, 0.197093f, 0.194076f, 0.191304f, 0.192923f,
+			0.207160f, 0.223307f, 0.243598f, 0.279989f, 0.188359f, 0.204253f,
+			0.222171f, 0.237203f, 0.315390f, 0.213397f, 0.212645f, 0.210765f,
+			0.211858f, 0.214359f, 0.232864f, 0.251980f, 0.275926f, 0.184869f,
+			0.201190f, 0.217864f, 0.234764f, 0.251011f, 0.344915f, 0.229691f,
+			0.230699f, 0.232158f, 0.233291f, 0.239244f, 0.262485f, 0.287462f,
+			0.193291f, 0.197953f, 0.215425f, 0.232667f, 0.249700f, 0.265560f,
+			0.374923f, 0.250570f, 0.254790f, 0.255722f, 0.261280f, 0.271689f,
+			0.297943f, 0.203884f, 0.208478f, 0.212981f, 0.230786f, 0.249014f,
+			0.265898f, 0.285174f, 0.411048f, 0.276929f, 0.277536f, 0.283605f,
+			0.294710f, 0.309752f, 0.215463f, 0.220820f, 0.228189f, 0.233379f,
+			0.248765f, 0.269367f, 0.289719f, 0.309809f, 0.453445f, 0.306218f,
+			0.313943f, 0.323782f, 0.340180f, 0.226924f, 0.233425f, 0.239040f,
+			0.246279f, 0.251579f, 0.270134f, 0.291149f, 0.313830f, 0.339242f,
+			0.491548f, 0.326263f, 0.336888f, 0.353608f, 0.242842f, 0.248486f,
+			0.254793f, 0.261665f, 0.270496f, 0.277782f, 0.298463f, 0.318552f,
+			0.346034f, 0.356710f, 0.534762f, 0.351321f, 0.368602f, 0.262695f,
+			0.268624f, 0.276246f, 0.282139f, 0.291031f, 0.299182f, 0.307489f,
+			0.329180f, 0.355216f, 0.367240f, 0.381044f, 0.583394f, 0.385637f,
+			0.293993f, 0.303067f, 0.310409f, 0.316485f, 0.312674f, 0.322896f,
+			0.334759f, 0.344428f, 0.372888f, 0.384614f, 0.397496f, 0.414583f,
+			0.637389f }, {
+			0.177831f, 0.108791f, 0.115263f, 0.120924f, 0.112524f, 0.107577f,
+			0.114580f, 0.121808f, 0.132567f, 0.141623f, 0.153706f, 0.170329f,
+			0.199089f, 0.149635f, 0.189534f, 0.129779f, 0.136389f, 0.128439f,
+			0.122818f, 0.119104f, 0.126563f, 0.136967f, 0.147707f, 0.160737f,
+			0.176720f, 0.205424f, 0.156183f, 0.168614f, 0.205425f, 0.149777f,
+			0.144522f, 0.138057f, 0.134077f, 0.131725f, 0.144044f, 0.152755f,
+			0.165991f, 0.182988f, 0.213299f, 0.161681f, 0.175266f, 0.188847f,
+			0.224795f, 0.158618f, 0.153709f, 0.149774f, 0.147288f, 0.148177f,
+			0.159479f, 0.172817f, 0.188207f, 0.220811f, 0.154381f, 0.168229f,
+			0.183984f, 0.196629f, 0.245529f, 0.170768f, 0.167836f, 0.165263f,
+			0.165008f, 0.163218f, 0.179363f, 0.196560f, 0.214263f, 0.149495f,
+			0.164478f, 0.178800f, 0.193563f, 0.208300f, 0.266856f, 0.184354f,
+			0.182974f, 0.183460f, 0.182526f, 0.184856f, 0.203954f, 0.224194f,
+			0.156104f, 0.160639f, 0.175611f, 0.190138f, 0.205082f, 0.221106f,
+			0.294514f, 0.200778f, 0.203979f, 0.202987f, 0.207011f, 0.212918f,
+			0.234366f, 0.164267f, 0.168669f, 0.172273f, 0.187105f, 0.204322f,
+			0.220975f, 0.237034f, 0.326653f, 0.225815f, 0.224665f, 0.228512f,
+			0.235269f, 0.246193f, 0.174785f, 0.178761f, 0.184256f, 0.187846f,
+			0.202938f, 0.221312f, 0.239990f, 0.260244f, 0.364004f, 0.253215f,
+			0.258133f, 0.263762f, 0.275357f, 0.184953f, 0.188944f, 0.194478f,
+			0.200278f, 0.204201f, 0.221298f, 0.240914f, 0.259562f, 0.286307f,
+			0.402239f, 0.270044f, 0.278230f, 0.288869f, 0.198038f, 0.200965f,
+			0.207179f, 0.212950f, 0.218909f, 0.225419f, 0.244785f, 0.264503f,
+			0.291005f, 0.301171f, 0.447802f, 0.291768f, 0.304345f, 0.213208f,
+			0.219392f, 0.224379f, 0.230355f, 0.235927f, 0.243748f, 0.251468f,
+			0.271695f, 0.299318f, 0.310284f, 0.324988f, 0.498187f, 0.323436f,
+			0.239870f, 0.248092f, 0.252894f, 0.260489f, 0.255179f, 0.263117f,
+			0.273335f, 0.282264f, 0.310601f, 0.321823f, 0.337871f, 0.353377f,
+			0.559855f } };
+
+	private static final char[] RANK_NAMES = "23456789TJQKA".toCharArray();
+
+	private PreflopEquity() {
+	}
+
+	/**
+	 * @param first
+	 *            index of the first hole card
+	 * @param second
+	 *            index of the second hole card
+	 * @return the class of the starting hand, between 0 and 168
+	 */
+	public static int classOf(int first, int second) {
+		int rank1 = first % 13, rank2 = second % 13;
+		int high = Math.max(rank1, rank2), low = Math.min(rank1, rank2);
+		if (first / 13 == second / 13)
+			return high * 13 + low;
+		else
+			return low * 13 + high;
+	}
+
+	public static int classOf(Card first, Card second) {
+		return classOf(first.getIndex(), second.getIndex());
+	}
+
+	/**
+	 * @param cls
+	 * @return indexes of two cards that make a hand in the class
+	 */
+	public static int[] exampleOf(int cls) {
+		int row = cls / 13, col = cls % 13;
+		// suited in spades, offsuit and pairs in spades and hearts
+		if (row > col)
+			return new int[] { row, col };
+		else
+			return new int[] { row, 13 + col };
+	}
+
+	/**
+	 * @param cls
+	 * @return the usual short name of the class, like AA, AKs or T9o
+	 */
+	public static String nameOf(int cls) {
+		int row = cls / 13, col = cls % 13;
+		if (row == col)
+			return "" + RANK_NAMES[row] + RANK_NAMES[row];
+		else if (row > col)
+			return "" + RANK_NAMES[row] + RANK_NAMES[col] + "s";
+		else
+			return "" + RANK_NAMES[col] + RANK_NAMES[row] + "o";
+	}
+
+	/**
+	 * @param holeCards
+	 * @param opponents
+	 *            between 1 and {@link #MAX_OPPONENTS}
+	 * @return chance of the hand beating every opponent's
+	 */
+	public static float getWinProbability(List<Card> holeCards, int opponents) {
+		return WIN[opponents - 1][classOf(holeCards.get(0), holeCards.get(1))];
+	}
+
+	/**
+	 * @param holeCards
+	 * @param opponents
+	 *            between 1 and {@link #MAX_OPPONENTS}
+	 * @return chance of the hand tying for the best hand
+	 */
+	public static float getTieProbability(List<Card> holeCards, int opponents) {
+		return TIE[opponents - 1][classOf(holeCards.get(0), holeCards.get(1))];
+	}
+
+	/**
+	 * @param holeCards
+	 * @param opponents
+	 *            between 1 and {@link #MAX_OPPONENTS}
+	 * @return the share of the pot the hand wins on average, with split pots
+	 *         divided between the tied players
+	 */
+	public static float getEquity(List<Card> holeCards, int opponents) {
+		return EQUITY[opponents - 1][classOf(holeCards.get(0), holeCards.get(1))];
+	}
+}
@@ -0,0 +1,199 @@
+package ecv.poker.ai;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import ecv.poker.card.Board;
+import ecv.poker.card.Card;
+import ecv.poker.card.CardSet;
+
+/**
+ * Offline generator of the tables in {@link PreflopEquity}. Prints the array
+ * initializers to paste into that class.
+ *
+ * Heads-up values are exact. Every board is enumerated once, every hole card
+ * pair left over is scored against it, and after sorting the scores each
+ * pair's wins and ties against all the pairs that don't share its cards are
+ * counted by inclusion-exclusion, rather than playing out all 1225 opponent
+ * hands one at a time.
+ *
+ * Multi-way values are simulated by a {@link SimulationKernel},
+ * {@link #MULTIWAY_SAMPLES} deals per class and number of opponents.
+ */
+public class PreflopEquityGenerator {
+
+	/** Deals simulated per class for each multi-way table */
+	public static final int MULTIWAY_SAMPLES = 500000;
+
+	private static final int PAIRS = 52 * 52;
+
+	public static void main(String[] args) {
+		float[][] win = new float[PreflopEquity.MAX_OPPONENTS][];
+		float[][] tie = new float[PreflopEquity.MAX_OPPONENTS][];
+		float[][] equity = new float[PreflopEquity.MAX_OPPONENTS][];
+		enumerateHeadsUp(win, tie, equity);
+		Random random = new Random(169);
+		for (int opponents = 2; opponents <= PreflopEquity.MAX_OPPONENTS; opponents++)
+			simulateMultiway(opponents, random, win, tie, equity);
+
+		print("WIN", win);
+		print("TIE", tie);
+		print("EQUITY", equity);
+	}
+
+	/**
+	 * Exact heads-up probabilities for every class, written to index 0 of the
+	 * tables
+	 */
+	private static void enumerateHeadsUp(float[][] win, float[][] tie,
+			float[][] equity) {
+		// indexed by first card * 52 + second card, lower card first
+		long[] wins = new long[PAIRS];
+		long[] ties = new long[PAIRS];
+
+		int[] rest = new int[47];
+		long[] keys = new long[47 * 46 / 2];
+		int[] first = new int[keys.length];
+		int[] second = new int[keys.length];
+		int[] below = new int[52];
+		int[] equal = new int[52];
+
+		Board[] boards = new Board[6];
+		boards[0] = Board.EMPTY;
+		int[] b = new int[5];
+		for (b[0] = 0; b[0] < 48; b[0]++) {
+			boards[1] = boards[0].with(Card.get(b[0]));
+			for (b[1] = b[0] + 1; b[1] < 49; b[1]++) {
+				boards[2] = boards[1].with(Card.get(b[1]));
+				for (b[2] = b[1] + 1; b[2] < 50; b[2]++) {
+					boards[3] = boards[2].with(Card.get(b[2]));
+					for (b[3] = b[2] + 1; b[3] < 51; b[3]++) {
+						boards[4] = boards[3].with(Card.get(b[3]));
+						for (b[4] = b[3] + 1; b[4] < 52; b[4]++) {
+							boards[5] = boards[4].with(Card.get(b[4]));
+							countBoard(boards[5], rest, keys, first, second,
+									below, equal, wins, ties);
+						}
+					}
+				}
+			}
+		}
+
+		// every hand meets C(50, 2) opponent hands on C(48, 5) boards
+		double outcomes = 1225.0 * 1712304.0;
+		double[] classWin = new double[PreflopEquity.CLASSES];
+		double[] classTie = new double[PreflopEquity.CLASSES];
+		int[] classSize = new int[PreflopEquity.CLASSES];
+		for (int i = 0; i < 52; i++) {
+			for (int j = i + 1; j < 52; j++) {
+				int c = PreflopEquity.classOf(i, j);
+				classWin[c] += wins[i * 52 + j] / outcomes;
+				classTie[c] += ties[i * 52 + j] / outcomes;
+				classSize[c]++;
+			}
+		}
+		win[0] = new float[PreflopEquity.CLASSES];
+		tie[0] = new float[PreflopEquity.CLASSES];
+		equity[0] = new float[PreflopEquity.CLASSES];
+		for (int c = 0; c < PreflopEquity.CLASSES; c++) {
+			win[0][c] = (float) (classWin[c] / classSize[c]);
+			tie[0][c] = (float) (classTie[c] / classSize[c]);
+			equity[0][c] = (float) ((classWin[c] + classTie[c] / 2) / classSize[c]);
+		}
+	}
+
+	/**
+	 * Score every pair of the 47 cards left off a board, then credit each pair
+	 * with the pairs it beats and ties that don't share a card with it.
+	 */
+	private static void countBoard(Board board, int[] rest, long[] keys,
+			int[] first, int[] second, int[] below, int[] equal, long[] wins,
+			long[] ties) {
+		long cards = board.getCards();
+		int n = 0;
+		for (int i = 0; i < 52; i++)
+			if ((cards & 1L << i) == 0)
+				rest[n++] = i;
+
+		int pairs = 0;
+		for (int i = 0; i < n; i++) {
+			for (int j = i + 1; j < n; j++) {
+				first[pairs] = rest[i];
+				second[pairs] = rest[j];
+				keys[pairs] = (long) board.evaluate(rest[i], rest[j]) << 11
+						| pairs;
+				pairs++;
+			}
+		}
+		Arrays.sort(keys, 0, pairs);
+
+		// below counts the pairs scored lower than the current group, in
+		// total and by card
+		Arrays.fill(below, 0);
+		int belowTotal = 0;
+		int start = 0;
+		while (start < pairs) {
+			int end = start;
+			while (end < pairs && keys[end] >>> 11 == keys[start] >>> 11)
+				end++;
+			for (int k = start; k < end; k++) {
+				int p = (int) (keys[k] & 0x7ff);
+				equal[first[p]]++;
+				equal[second[p]]++;
+			}
+			int groupSize = end - start;
+			for (int k = start; k < end; k++) {
+				int p = (int) (keys[k] & 0x7ff);
+				int a = first[p], b = second[p];
+				wins[a * 52 + b] += belowTotal - below[a] - below[b];
+				// only the pair itself holds both cards, and it was taken
+				// away twice
+				ties[a * 52 + b] += groupSize - equal[a] - equal[b] + 1;
+			}
+			for (int k = start; k < end; k++) {
+				int p = (int) (keys[k] & 0x7ff);
+				below[first[p]]++;
+				below[second[p]]++;
+				equal[first[p]] = 0;
+				equal[second[p]] = 0;
+			}
+			belowTotal += groupSize;
+			start = end;
+		}
+	}
+
+	/**
+	 * Simulated probabilities against a number of opponents, written to index
+	 * opponents - 1 of the tables
+	 */
+	private static void simulateMultiway(int opponents, Random random,
+			float[][] win, float[][] tie, float[][] equity) {
+		win[opponents - 1] = new float[PreflopEquity.CLASSES];
+		tie[opponents - 1] = new float[PreflopEquity.CLASSES];
+		equity[opponents - 1] = new float[PreflopEquity.CLASSES];
+		for (int c = 0; c < PreflopEquity.CLASSES; c++) {
+			int[] hand = PreflopEquity.exampleOf(c);
+			SimulationKernel kernel = new SimulationKernel(1L << hand[0]
+					| 1L << hand[1], CardSet.EMPTY, opponents, null, null,
+					random);
+			kernel.run(MULTIWAY_SAMPLES);
+			win[opponents - 1][c] = (float) kernel.getWins() / MULTIWAY_SAMPLES;
+			tie[opponents - 1][c] = (float) kernel.getTies() / MULTIWAY_SAMPLES;
+			equity[opponents - 1][c] = (float) (kernel.getShare() / MULTIWAY_SAMPLES);
+		}
+	}
+
+	private static void print(String name, float[][] table) {
+		System.out.print("\tstatic final float[][] " + name + " = { {");
+		for (int o = 0; o < table.length; o++) {
+			for (int c = 0; c < table[o].length; c++) {
+				System.out.print(c % 6 == 0 ? "\n\t\t\t" : " ");
+				System.out.print(String.format(Locale.US, "%.6ff", table[o][c]));
+				if (c < table[o].length - 1)
+					System.out.print(",");
+			}
+			System.out.println(o < table.length - 1 ? " }, {" : " } };");
+		}
+	}
+}
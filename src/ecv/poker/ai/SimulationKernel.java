@@ -0,0 +1,238 @@
+package ecv.poker.ai;
+
+import java.util.Random;
+
+import ecv.poker.card.Board;
+import ecv.poker.card.Card;
+import ecv.poker.card.CardSet;
+
+/**
+ * Plays out random deals of the unknown cards against one or more opponents,
+ * working on card indexes so that nothing but the finished {@link Board}, and
+ * the list of hands for a stratified run, is created once it is running.
+ *
+ * The unknown cards are kept in an int array. Each deal draws only the cards
+ * it needs, two for each opponent and the rest of the board, by a partial
+ * Fisher-Yates shuffle of the front of the array. The swaps leave the array a
+ * permutation of the same cards, so the next deal can draw from it as it is
+ * without putting anything back.
+ *
+ * The board is run through the evaluator once per deal, and every hand is
+ * finished off from there, so a deal costs little more for each opponent
+ * added. Scoring stops at the first opponent who beats the player. A split
+ * pot credits the player with their share of it.
+ *
+ * Given an opponent range, the first opponent's hand is drawn from its
+ * {@link AliasTable} instead, and its two cards are swapped to the front by
+ * looking up where they are, before the other hands and the board are drawn
+ * from the rest.
+ *
+ * Given a {@link SystematicSampler}, each run spreads the first opponent's
+ * hands evenly over the sampler's layout instead of drawing them one by one.
+ * Which hand the opponent holds matters more to the result than which cards
+ * come on the board, so this takes out much of the variance. The variance of
+ * such a run is estimated from the differences between neighbouring deals,
+ * as if each pair were a stratum of its own. That is only an approximation
+ * for systematic sampling, but a close one.
+ * The hands are laid out weakest first, so a run cut short by an interrupt
+ * is biased towards weak hands.
+ *
+ * A kernel belongs to one thread.
+ */
+class SimulationKernel {
+
+	// how often to look for an interrupt, in deals
+	private static final int CHECK_INTERVAL = 256;
+
+	private final int[] deck;
+	// where each card is in deck
+	private final int[] position = new int[52];
+	// the first opponent's hands by weight, or null to draw them from the
+	// deck
+	private final AliasTable range;
+	// spreads the first opponent's hands over a run, or null
+	private final SystematicSampler strata;
+	private final int opponents;
+	private final int first, second;
+	private final Board community;
+	// community cards still to come
+	private final int missing;
+	private final Random random;
+
+	private long trials, wins, ties;
+	// pots won, counting a share of each split pot
+	private double share;
+	// pairs of neighbouring deals in a systematic run that came out
+	// differently, one a win or tie and the other a loss
+	private long differences;
+
+	/**
+	 * @param holeCards
+	 *            the player's two hole cards, as a CardSet
+	 * @param community
+	 *            community cards dealt so far, as a CardSet
+	 * @param opponents
+	 *            number of opponents, at least 1
+	 * @param range
+	 *            draws the first opponent's hands, which must not hold any
+	 *            known card, or null if all hands are equally likely
+	 * @param strata
+	 *            spreads the first opponent's hands over each run, in place
+	 *            of range, or null to draw them independently
+	 * @param random
+	 *            used by this kernel only
+	 */
+	SimulationKernel(long holeCards, long community, int opponents,
+			AliasTable range, SystematicSampler strata, Random random) {
+		first = Long.numberOfTrailingZeros(holeCards);
+		second = 63 - Long.numberOfLeadingZeros(holeCards);
+		this.community = Board.of(CardSet.toList(community));
+		this.opponents = opponents;
+		this.range = range;
+		this.strata = strata;
+		this.random = random;
+		missing = 5 - CardSet.size(community);
+
+		long unknown = CardSet.DECK & ~(holeCards | community);
+		deck = new int[CardSet.size(unknown)];
+		int n = 0;
+		for (int i = 0; i < 52; i++) {
+			if ((unknown & 1L << i) != 0) {
+				position[i] = n;
+				deck[n++] = i;
+			}
+		}
+	}
+
+	/**
+	 * Play out deals until there have been that many or the thread is
+	 * interrupted
+	 *
+	 * @param deals
+	 *            number of deals to play
+	 */
+	void run(int deals) {
+		int[] combos = null;
+		if (strata != null) {
+			combos = new int[deals];
+			strata.fill(combos, deals, random.nextDouble());
+		}
+		boolean last = false;
+		for (int i = 0; i < deals; i++) {
+			if (i % CHECK_INTERVAL == 0
+					&& Thread.currentThread().isInterrupted())
+				return;
+			if (strata == null) {
+				deal();
+				continue;
+			}
+			boolean won = play(combos[i]);
+			if (i % 2 == 1 && won != last)
+				differences++;
+			last = won;
+		}
+	}
+
+	/**
+	 * Play out one deal, drawn independently of the others
+	 */
+	void deal() {
+		play(range == null ? -1 : range.sample(random));
+	}
+
+	/**
+	 * @param combo
+	 *            the first opponent's hand, or -1 to draw it from the deck
+	 * @return true if the player won or split the pot
+	 */
+	private boolean play(int combo) {
+		// opponent o holds deck[2 * o] and deck[2 * o + 1]
+		int k = 0;
+		if (combo >= 0) {
+			take(OpponentRange.FIRST[combo], k++);
+			take(OpponentRange.SECOND[combo], k++);
+		}
+		for (; k < 2 * opponents; k++)
+			draw(k);
+		Board board = community;
+		for (; k < 2 * opponents + missing; k++)
+			board = board.with(Card.get(draw(k)));
+
+		trials++;
+		int hero = board.evaluate(first, second);
+		int tied = 0;
+		for (int o = 0; o < opponents; o++) {
+			int villain = board.evaluate(deck[2 * o], deck[2 * o + 1]);
+			if (villain > hero)
+				return false;
+			if (villain == hero)
+				tied++;
+		}
+		if (tied == 0) {
+			wins++;
+			share += 1;
+		} else {
+			ties++;
+			share += 1.0 / (tied + 1);
+		}
+		return true;
+	}
+
+	/**
+	 * Swap a random card from position k on into position k
+	 *
+	 * @return that card
+	 */
+	private int draw(int k) {
+		return swap(k, k + random.nextInt(deck.length - k));
+	}
+
+	/**
+	 * Swap the card into position k
+	 */
+	private void take(int card, int k) {
+		swap(k, position[card]);
+	}
+
+	/**
+	 * @return the card now at k
+	 */
+	private int swap(int k, int j) {
+		int card = deck[j];
+		deck[j] = deck[k];
+		deck[k] = card;
+		position[deck[j]] = j;
+		position[card] = k;
+		return card;
+	}
+
+	long getTrials() {
+		return trials;
+	}
+
+	long getWins() {
+		return wins;
+	}
+
+	long getTies() {
+		return ties;
+	}
+
+	double getShare() {
+		return share;
+	}
+
+	/**
+	 * @return estimated variance of the share of deals won or split, as an
+	 *         estimate of the chance of winning or splitting, over a single
+	 *         run
+	 */
+	double getVariance() {
+		if (trials == 0)
+			return 0;
+		if (strata != null)
+			return (double) differences / trials / trials;
+		double p = (double) (wins + ties) / trials;
+		return p * (1 - p) / trials;
+	}
+}
@@ -0,0 +1,162 @@
+package ecv.poker.ai;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * How often to take each action at every decision of a {@link BettingTree},
+ * for each {@link CardAbstraction} bucket, as found by the {@link CfrSolver}.
+ *
+ * The probabilities are kept to a byte each, in the tree's layout, so looking
+ * up a decision is an offset and a few reads. The table only holds the
+ * probabilities, the sizes the tree and buckets were built with, and the id
+ * of the {@link BucketTable} if the buckets came from one; they are built
+ * again when it is read.
+ */
+public class StrategyTable {
+
+	private static final int MAGIC = 0x45435653;
+	private static final int VERSION = 2;
+
+	private final BettingTree tree;
+	private final CardAbstraction cards;
+	// out of 255, for each entry of the tree
+	private final byte[] probabilities;
+
+	/**
+	 * @param cards
+	 *            the buckets the strategy was found for
+	 * @param probabilities
+	 *            out of 255, laid out as the tree's entries
+	 */
+	StrategyTable(BettingTree tree, CardAbstraction cards, byte[] probabilities) {
+		if (probabilities.length != tree.getInfoSetSize())
+			throw new IllegalArgumentException(probabilities.length
+					+ " probabilities for " + tree.getInfoSetSize()
+					+ " entries");
+		if (cards.getBuckets() != tree.getBuckets())
+			throw new IllegalArgumentException(cards.getBuckets()
+					+ " buckets for a tree of " + tree.getBuckets());
+		this.tree = tree;
+		this.cards = cards;
+		this.probabilities = probabilities;
+	}
+
+	/**
+	 * Read a table written by {@link #write(OutputStream)}, for buckets by
+	 * strength alone
+	 *
+	 * @throws IOException
+	 *             if the stream can't be read or doesn't hold a table
+	 */
+	public static StrategyTable read(InputStream in) throws IOException {
+		return read(in, null);
+	}
+
+	/**
+	 * Read a table written by {@link #write(OutputStream)}
+	 *
+	 * @param buckets
+	 *            the bucket table the strategy was found with, or null if it
+	 *            wasn't found with one
+	 * @throws IOException
+	 *             if the stream can't be read, doesn't hold a table or the
+	 *             strategy needs a bucket table other than the one given
+	 */
+	public static StrategyTable read(InputStream in, BucketTable buckets)
+			throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if (data.readInt() != MAGIC)
+			throw new IOException("Not a strategy table");
+		int version = data.readInt();
+		if (version != VERSION)
+			throw new IOException("Strategy table version " + version);
+		BettingTree tree = new BettingTree(data.readInt(), data.readInt());
+		long id = data.readLong();
+		CardAbstraction cards;
+		if (id == 0)
+			cards = new CardAbstraction(tree.getBuckets());
+		else if (buckets != null && buckets.getId() == id
+				&& buckets.getBuckets() == tree.getBuckets())
+			cards = new CardAbstraction(buckets);
+		else
+			throw new IOException("Strategy needs bucket table "
+					+ Long.toHexString(id));
+		byte[] probabilities = new byte[data.readInt()];
+		if (probabilities.length != tree.getInfoSetSize())
+			throw new IOException("Strategy table doesn't fit its tree");
+		data.readFully(probabilities);
+		return new StrategyTable(tree, cards, probabilities);
+	}
+
+	public void write(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(
+				out));
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(tree.getMaxRaises());
+		data.writeInt(tree.getBuckets());
+		data.writeLong(cards.getTable() == null ? 0 : cards.getTable().getId());
+		data.writeInt(probabilities.length);
+		data.write(probabilities);
+		data.flush();
+	}
+
+	public BettingTree getTree() {
+		return tree;
+	}
+
+	public CardAbstraction getCardAbstraction() {
+		return cards;
+	}
+
+	/**
+	 * @param node
+	 *            a decision node of the tree
+	 * @param bucket
+	 *            the acting player's bucket
+	 * @param i
+	 *            which of the node's actions
+	 * @return how often to take it
+	 */
+	public float getProbability(int node, int bucket, int i) {
+		int base = tree.getOffset(node, bucket);
+		int total = 0;
+		for (int a = 0; a < tree.getActionCount(node); a++)
+			total += probabilities[base + a] & 0xff;
+		return total == 0 ? 1f / tree.getActionCount(node)
+				: (float) (probabilities[base + i] & 0xff) / total;
+	}
+
+	/**
+	 * Pick an action with the probabilities in the table
+	 *
+	 * @param node
+	 *            a decision node of the tree
+	 * @param bucket
+	 *            the acting player's bucket
+	 * @return one of the {@link BettingTree} actions
+	 */
+	public int choose(int node, int bucket, Random random) {
+		int base = tree.getOffset(node, bucket);
+		int n = tree.getActionCount(node);
+		int total = 0;
+		for (int a = 0; a < n; a++)
+			total += probabilities[base + a] & 0xff;
+		if (total == 0)
+			return tree.getAction(node, random.nextInt(n));
+		int r = random.nextInt(total);
+		for (int a = 0; a < n - 1; a++) {
+			r -= probabilities[base + a] & 0xff;
+			if (r < 0)
+				return tree.getAction(node, a);
+		}
+		return tree.getAction(node, n - 1);
+	}
+}
@@ -0,0 +1,71 @@
+package ecv.poker.ai;
+
+/**
+ * Spreads a run of draws evenly over a fixed set of weighted outcomes, by
+ * systematic sampling. The outcomes are laid end to end over [0, 1), each
+ * taking up its share of the total weight, and draw i of a run of n takes the
+ * outcome at (i + u) / n for a single uniform u per run.
+ *
+ * Every outcome is still drawn with probability in proportion to its weight,
+ * but a run can't bunch up on some outcomes and miss others, so when the
+ * outcomes are in order of how they affect the result, the average over a
+ * run varies less than it would over independent draws.
+ *
+ * Samplers are immutable once built, so one can be shared by every thread
+ * drawing from it.
+ */
+class SystematicSampler {
+
+	private final int[] outcomes;
+	// upper end of each outcome's share of [0, 1)
+	private final double[] bounds;
+
+	/**
+	 * @param outcomes
+	 *            what each weight is for, in the order to lay them out
+	 * @param weights
+	 *            positive weights, not necessarily summing to 1
+	 * @param n
+	 *            number of outcomes used from the arrays
+	 */
+	SystematicSampler(int[] outcomes, float[] weights, int n) {
+		this.outcomes = new int[n];
+		System.arraycopy(outcomes, 0, this.outcomes, 0, n);
+		bounds = new double[n];
+
+		double total = 0;
+		for (int i = 0; i < n; i++)
+			total += weights[i];
+		double sum = 0;
+		for (int i = 0; i < n; i++) {
+			sum += weights[i];
+			bounds[i] = sum / total;
+		}
+		// rounding mustn't leave a gap at the top
+		bounds[n - 1] = 1;
+	}
+
+	/**
+	 * Lay out a run of draws in one pass over the outcomes
+	 *
+	 * @param out
+	 *            gets the n outcomes drawn, in the order they are laid out
+	 * @param n
+	 *            number of draws in the run
+	 * @param offset
+	 *            a uniform point in [0, 1), the same for the whole run
+	 */
+	void fill(int[] out, int n, double offset) {
+		int j = 0;
+		for (int i = 0; i < n; i++) {
+			double u = (i + offset) / n;
+			while (bounds[j] <= u)
+				j++;
+			out[i] = outcomes[j];
+		}
+	}
+
+	int size() {
+		return outcomes.length;
+	}
+}
@@ -0,0 +1,69 @@
+package ecv.poker.card;
+
+/**
+ * Scores many hands in one call. Hands are passed in packed primitive arrays
+ * and their values, the same as the {@link Evaluator}'s, are written to an
+ * int array, so nothing is created per hand and the loops stay simple enough
+ * for the JIT to unroll.
+ *
+ * Every hand must hold 5 to 7 cards.
+ */
+public class BatchEvaluator {
+
+	private BatchEvaluator() {
+	}
+
+	/**
+	 * @param hands
+	 *            each hand as a {@link CardSet}
+	 * @param scores
+	 *            where the value of hands[i] is written to scores[i]
+	 * @param count
+	 *            number of hands to score
+	 */
+	public static void evaluate(long[] hands, int[] scores, int count) {
+		for (int i = 0; i < count; i++)
+			scores[i] = Evaluator.evaluate(hands[i]);
+	}
+
+	/**
+	 * Hands as card indexes in structure of arrays layout: cards[k][i] is the
+	 * k-th card of hand i, so every hand holds cards.length cards.
+	 *
+	 * @param cards
+	 *            5 to 7 arrays of {@link Card#getIndex()}
+	 * @param scores
+	 *            where the value of hand i is written to scores[i]
+	 * @param count
+	 *            number of hands to score
+	 */
+	public static void evaluate(int[][] cards, int[] scores, int count) {
+		for (int i = 0; i < count; i++) {
+			long hand = CardSet.EMPTY;
+			for (int k = 0; k < cards.length; k++)
+				hand |= 1L << cards[k][i];
+			scores[i] = Evaluator.evaluate(hand);
+		}
+	}
+
+	/**
+	 * Score pairs of hole cards against the same board, such as every player
+	 * at a showdown or every simulated opponent hand.
+	 *
+	 * @param board
+	 *            3 to 5 community cards
+	 * @param first
+	 *            index of each hand's first hole card
+	 * @param second
+	 *            index of each hand's second hole card
+	 * @param scores
+	 *            where the value of hand i is written to scores[i]
+	 * @param count
+	 *            number of hands to score
+	 */
+	public static void evaluate(Board board, int[] first, int[] second,
+			int[] scores, int count) {
+		for (int i = 0; i < count; i++)
+			scores[i] = board.evaluate(first[i], second[i]);
+	}
+}
@@ -0,0 +1,106 @@
+package ecv.poker.card;
+
+import java.util.List;
+
+/**
+ * Community cards that have been run through the {@link TableEvaluator} once,
+ * so every player's hand can be finished off from there. Completing a board of
+ * 3 to 5 cards with 2 hole cards is two table reads, plus one more when the
+ * board holds 3 or more cards of a suit.
+ *
+ * Boards are immutable and can be shared between threads.
+ */
+public class Board {
+
+	/** The board with no cards dealt yet */
+	public static final Board EMPTY = new Board(0, CardSet.EMPTY);
+
+	private final int state;
+	private final long cards;
+	// the only suit a 2 card hand can make a flush with, or -1
+	private final int flushSuit;
+
+	private Board(int state, long cards) {
+		this.state = state;
+		this.cards = cards;
+		int suit = -1;
+		for (int s = 0; s < 4; s++)
+			if (Integer.bitCount(CardSet.ranks(cards, s)) >= 3)
+				suit = s;
+		flushSuit = suit;
+	}
+
+	/**
+	 * @param community
+	 *            up to 5 community cards
+	 * @return the board made by those cards
+	 */
+	public static Board of(List<Card> community) {
+		Board board = EMPTY;
+		for (int i = 0; i < community.size(); i++)
+			board = board.with(community.get(i));
+		return board;
+	}
+
+	/**
+	 * @param c
+	 * @return a new board with c added to this one
+	 */
+	public Board with(Card c) {
+		return new Board(TableEvaluator.next(state, c.getRank() - 2), cards
+				| c.getBit());
+	}
+
+	/**
+	 * @return the board's cards as a {@link CardSet}
+	 */
+	public long getCards() {
+		return cards;
+	}
+
+	public int size() {
+		return CardSet.size(cards);
+	}
+
+	/**
+	 * Same as {@link TableEvaluator#evaluate(List, List)} with this board's
+	 * cards as the community cards
+	 *
+	 * @param holeCards
+	 * @return an evaluation of the cards, or -1 if the player has folded
+	 */
+	public int evaluate(List<Card> holeCards) {
+		if (holeCards.size() == 0)
+			return -1;
+		else if (holeCards.size() == 2 && size() >= 3)
+			return evaluate(holeCards.get(0).getIndex(), holeCards.get(1)
+					.getIndex());
+		else
+			return TableEvaluator.evaluate(holeCards, CardSet.toList(cards));
+	}
+
+	public int evaluate(Card first, Card second) {
+		return evaluate(first.getIndex(), second.getIndex());
+	}
+
+	/**
+	 * Value of the board plus two hole cards. The board must hold at least 3
+	 * cards.
+	 *
+	 * @param first
+	 *            index of the first hole card
+	 * @param second
+	 *            index of the second hole card
+	 * @return an evaluation of the cards as an integer
+	 */
+	public int evaluate(int first, int second) {
+		int val = TableEvaluator.value(TableEvaluator.next(
+				TableEvaluator.next(state, first % 13), second % 13));
+		if (flushSuit >= 0) {
+			int ranks = CardSet.ranks(cards | 1L << first | 1L << second,
+					flushSuit);
+			val = Math.max(val, TableEvaluator.flush(ranks));
+		}
+		return val;
+	}
+}
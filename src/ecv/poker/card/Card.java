@@ -4,34 +4,79 @@ package ecv.poker.card;
 /**
  * Copied from Crazy Eights With small modifications. Implements comparable so
  * hands can easily be sorted
- * 
+ *
+ * Cards are immutable and there is only one instance of each, obtained through
+ * {@link #get(int)}. A card's index packs its suit and rank into 0 to 51 (13 *
+ * suit + rank - 2), so cards can be held as small ints or bits of a
+ * {@link CardSet} and compared with ==.
+ *
  * @author Evan
  */
 public class Card implements Comparable<Card> {
 
-	private int id;
-	private int suit;
-	private int rank;
-	private int resId;
+	/** Prime of each rank, deuce to ace. Products identify rank multisets */
+	private static final int[] PRIMES = { 2, 3, 5, 7, 11, 13, 17, 19, 23, 29,
+			31, 37, 41 };
 
-	public Card(int newId) {
-		id = newId;
-		suit = Math.round((id / 100) * 100);
-		rank = id - suit;
+	private static final Card[] CARDS = new Card[52];
+	static {
+		for (int i = 0; i < CARDS.length; i++)
+			CARDS[i] = new Card(i);
 	}
 
-	public int getId() {
-		return id;
+	private final int index;
+	private final int id;
+	private final int suit;
+	private final int rank;
+	private final long bit;
+	private final int prime;
+
+	private Card(int index) {
+		this.index = index;
+		suit = index / 13;
+		rank = index % 13 + 2;
+		id = 100 * (suit + 1) + rank;
+		bit = 1L << index;
+		prime = PRIMES[rank - 2];
 	}
 
-	public int getResId() {
-		return resId;
+	/**
+	 * @param index
+	 *            between 0 and 51
+	 * @return the card with that index
+	 */
+	public static Card get(int index) {
+		return CARDS[index];
 	}
 
-	public void setResId(int resId) {
-		this.resId = resId;
+	/**
+	 * @param rank
+	 *            2 to 14, ace high
+	 * @param suit
+	 *            0 to 3
+	 * @return the card of that rank and suit
+	 */
+	public static Card get(int rank, int suit) {
+		return CARDS[13 * suit + rank - 2];
 	}
 
+	/**
+	 * @return position of the card in a sorted deck, between 0 and 51
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * @return 100 * suit + rank, with suits numbered 1 to 4
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * @return the suit, between 0 and 3
+	 */
 	public int getSuit() {
 		return suit;
 	}
@@ -40,6 +85,20 @@ public class Card implements Comparable<Card> {
 		return rank;
 	}
 
+	/**
+	 * @return the card's bit in a {@link CardSet}
+	 */
+	public long getBit() {
+		return bit;
+	}
+
+	/**
+	 * @return a prime unique to the card's rank
+	 */
+	public int getPrime() {
+		return prime;
+	}
+
 	@Override
 	public int compareTo(Card another) {
 		if (this.getRank() < another.getRank())
@@ -0,0 +1,73 @@
+package ecv.poker.card;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helpers for holding a set of cards in the low 52 bits of a long. Bit
+ * {@link Card#getIndex()} is set for each card, so every suit's ranks sit in
+ * their own 13 bit block, deuce lowest and ace highest. Sets can be combined
+ * with | and & and compared with ==, without sorting or creating objects.
+ */
+public class CardSet {
+
+	public static final long EMPTY = 0L;
+	/** All 52 cards */
+	public static final long DECK = (1L << 52) - 1;
+
+	private static final int RANK_MASK = (1 << 13) - 1;
+
+	private CardSet() {
+	}
+
+	/**
+	 * @param c
+	 * @return a set holding only c
+	 */
+	public static long of(Card c) {
+		return c.getBit();
+	}
+
+	/**
+	 * @param cards
+	 * @return a set of all cards in the list
+	 */
+	public static long of(List<Card> cards) {
+		long set = EMPTY;
+		for (int i = 0; i < cards.size(); i++)
+			set |= cards.get(i).getBit();
+		return set;
+	}
+
+	/**
+	 * @param set
+	 * @return the cards in the set, in ascending order of their bits
+	 */
+	public static List<Card> toList(long set) {
+		List<Card> cards = new ArrayList<Card>(size(set));
+		while (set != 0) {
+			int index = Long.numberOfTrailingZeros(set);
+			set &= set - 1;
+			cards.add(Card.get(index));
+		}
+		return cards;
+	}
+
+	public static int size(long set) {
+		return Long.bitCount(set);
+	}
+
+	public static boolean contains(long set, Card c) {
+		return (set & c.getBit()) != 0;
+	}
+
+	/**
+	 * @param set
+	 * @param suit
+	 *            between 0 and 3
+	 * @return 13 bit mask of the ranks held in the suit, bit 0 being a deuce
+	 */
+	public static int ranks(long set, int suit) {
+		return (int) (set >>> 13 * suit) & RANK_MASK;
+	}
+}
@@ -9,6 +9,9 @@ import java.util.List;
  * ranks uses Hexadecimal digits to represent hand types and kickers, So bitwise
  * operations can be used to evaluate and construct them.
  * 
+ * Evaluating 5 to 7 cards never modifies the cards passed in and creates no
+ * objects, so it is safe to call from any number of threads at once.
+ * 
  * @author Evan
  * 
  */
@@ -34,8 +37,14 @@ public class Evaluator {
 	 * @return an evaluation of the cards as an integer
 	 */
 	public static int evaluate(List<Card> cards) {
-		// first sort cards in descending order
+		// the usual 5 to 7 cards are scored from their bits, which doesn't
+		// touch the list or create any objects
+		if (cards.size() >= 5 && cards.size() <= 7)
+			return evaluate(CardSet.of(cards));
+
+		// otherwise sort a copy of the cards in descending order
 		// highest pairs will appear first and will save search time
+		cards = new ArrayList<Card>(cards);
 		Collections.sort(cards);
 		Collections.reverse(cards);
 		if (cards.size() > 5)
@@ -62,10 +71,55 @@ public class Evaluator {
 			return getHighCard(cards);
 	}
 	
+	/**
+	 * Same evaluation as {@link #evaluate(List)} for a set of 5 to 7 cards held
+	 * in a {@link CardSet}. Rank multiplicities, straights and flushes are
+	 * found from the four suits' rank masks, without sorting or creating any
+	 * objects.
+	 * 
+	 * @param cards
+	 *            set of 5 to 7 cards
+	 * @return an evaluation of the cards as an integer
+	 */
+	public static int evaluate(long cards) {
+		if (CardSet.size(cards) < 5)
+			return evaluate(CardSet.toList(cards));
+
+		int s0 = CardSet.ranks(cards, 0);
+		int s1 = CardSet.ranks(cards, 1);
+		int s2 = CardSet.ranks(cards, 2);
+		int s3 = CardSet.ranks(cards, 3);
+
+		// a rank is held n times when it is in n of the suits
+		int any = s0 | s1 | s2 | s3;
+		int pairs = (s0 & s1) | (s0 & s2) | (s0 & s3) | (s1 & s2) | (s1 & s3)
+				| (s2 & s3);
+		int trips = (s0 & s1 & s2) | (s0 & s1 & s3) | (s0 & s2 & s3)
+				| (s1 & s2 & s3);
+		int quads = s0 & s1 & s2 & s3;
+		int val = rankValue(any, pairs, trips, quads);
+
+		// at most one suit can hold 5 of 7 cards
+		int flush = 0;
+		if (Integer.bitCount(s0) >= 5)
+			flush = s0;
+		else if (Integer.bitCount(s1) >= 5)
+			flush = s1;
+		else if (Integer.bitCount(s2) >= 5)
+			flush = s2;
+		else if (Integer.bitCount(s3) >= 5)
+			flush = s3;
+		if (flush != 0)
+			val = Math.max(val, flushValue(flush));
+		return val;
+	}
+
 	public static int evaluate(List<Card> holeCards, List<Card> community) {
 		// folding returns -1 (player loses)
 		if(holeCards.size() == 0)
 			return -1;
+		else if (holeCards.size() + community.size() <= 7)
+			return evaluate(CardSet.of(community) | CardSet.of(holeCards));
 		else {
 			List<Card> allCards = new ArrayList<Card>(community);
 			allCards.addAll(holeCards);
@@ -128,6 +182,9 @@ public class Evaluator {
 	 * always 0xf00000, set by << 20 Remaining digits set according to the type
 	 * of hand, But represent cards in the hand, such as the value of a pair,
 	 * High card in a straight, kickers, etc.
+	 * 
+	 * They expect 5 cards sorted in descending order, and are package
+	 * visible so the benchmarks can time them on their own.
 	 * ----------------------------------------------------------
 	 */
 
@@ -137,7 +194,7 @@ public class Evaluator {
 	 * @return 0x0----- Where the 5 digits are the card ranks in descending
 	 *         order.
 	 */
-	private static int getHighCard(List<Card> cards) {
+	static int getHighCard(List<Card> cards) {
 		int val = 0;
 		for (int i = 0; i < cards.size(); i++) {
 			val += cards.get(i).getRank() << 4 * (cards.size() - i - 1);
@@ -150,7 +207,7 @@ public class Evaluator {
 	 * @param cards
 	 * @return 0x10---- First digit is rank of pair, last 3 are kickers.
 	 */
-	private static int getPair(List<Card> cards) {
+	static int getPair(List<Card> cards) {
 		for (int i = 1; i < cards.size(); i++) {
 			int curRank = cards.get(i).getRank();
 			// pair found. rest of cards are kickers
@@ -179,7 +236,7 @@ public class Evaluator {
 	 * @return 0x200--- First digit is high pair Second digit is low pair Last
 	 *         digit is the kicker
 	 */
-	private static int getTwoPair(List<Card> cards) {
+	static int getTwoPair(List<Card> cards) {
 		// parse out the rank of highest pair (4th digit)
 		int pair1 = getPair(cards);
 		if (pair1 > 0) {
@@ -215,7 +272,7 @@ public class Evaluator {
 	 * @return 0x300--- First digit is rank of three-of-a-kind Last two are
 	 *         kickers
 	 */
-	private static int getTrips(List<Card> cards) {
+	static int getTrips(List<Card> cards) {
 		for (int i = 2; i < cards.size(); i++) {
 			int curRank = cards.get(i).getRank();
 			// found three of a kind
@@ -245,7 +302,7 @@ public class Evaluator {
 	 * @return 0x40000- Where the last digit is the rank of the highest card in
 	 *         the hand
 	 */
-	private static int getStraight(List<Card> cards) {
+	static int getStraight(List<Card> cards) {
 		boolean isStraight = true;
 		for (int i = 1; i < cards.size() && isStraight; i++) {
 			int curRank = cards.get(i).getRank();
@@ -273,7 +330,7 @@ public class Evaluator {
 	 * @return 0x5----- All cards same suit Last 5 digits are all cards in hand
 	 *         (like getHighCard)
 	 */
-	private static int getFlush(List<Card> cards) {
+	static int getFlush(List<Card> cards) {
 		int val = 0;
 		for (int i = 0; i < cards.size(); i++) {
 			if (cards.get(i).getSuit() != cards.get(0).getSuit())
@@ -293,7 +350,7 @@ public class Evaluator {
 	 * @return 0x6000-- First digit is rank of the trips Last digit is rank of
 	 *         the pair
 	 */
-	private static int getFullHouse(List<Card> cards) {
+	static int getFullHouse(List<Card> cards) {
 		// parse out rank of trips (3rd digit)
 		int trips = getTrips(cards);
 		if (trips != 0) {
@@ -320,7 +377,7 @@ public class Evaluator {
 	 * @return 0x7000-- First digit is rank of the four-of-a-kind Last digit is
 	 *         the kicker
 	 */
-	private static int getQuads(List<Card> cards) {
+	static int getQuads(List<Card> cards) {
 		for (int i = 3; i < cards.size(); i++) {
 			int curRank = cards.get(i).getRank();
 			if (cards.get(i - 1).getRank() == curRank
@@ -342,7 +399,7 @@ public class Evaluator {
 	 * @param cards
 	 * @return 0x80000- Last digit is the highest card in straight
 	 */
-	private static int getStraightFlush(List<Card> cards) {
+	static int getStraightFlush(List<Card> cards) {
 		// parse out high card in straight (least significant digit)
 		int straight = getStraight(cards);
 		if (straight > 0 && getFlush(cards) > 0) {
@@ -354,4 +411,110 @@ public class Evaluator {
 		} else
 			return 0;
 	}
+
+	/*
+	 * -----------------------------------------------------------
+	 * The same values built from 13 bit rank masks, where bit 0 is a deuce
+	 * and bit 12 is an ace. Used by evaluate(long) and to fill in the
+	 * TableEvaluator's tables.
+	 * ----------------------------------------------------------
+	 */
+
+	/**
+	 * Value of the best hand that can be made from 5 or more cards without a
+	 * flush
+	 * 
+	 * @param any
+	 *            ranks held at least once
+	 * @param pairs
+	 *            ranks held at least twice
+	 * @param trips
+	 *            ranks held at least three times
+	 * @param quads
+	 *            ranks held four times
+	 * @return the value of the hand
+	 */
+	static int rankValue(int any, int pairs, int trips, int quads) {
+		if (quads != 0) {
+			int quad = Integer.highestOneBit(quads);
+			return QUADS << 20 | rankOf(quad) << 4
+					| rankOf(Integer.highestOneBit(any & ~quad));
+		}
+		if (trips != 0) {
+			int trip = Integer.highestOneBit(trips);
+			int pair = pairs & ~trip;
+			if (pair != 0)
+				return FULL_HOUSE << 20 | rankOf(trip) << 4
+						| rankOf(Integer.highestOneBit(pair));
+		}
+		int high = straightHigh(any);
+		if (high > 0)
+			return STRAIGHT << 20 | high;
+		if (trips != 0) {
+			int trip = Integer.highestOneBit(trips);
+			return TRIPS << 20 | rankOf(trip) << 8 | kickers(any & ~trip, 2);
+		}
+		if (Integer.bitCount(pairs) >= 2) {
+			int pair1 = Integer.highestOneBit(pairs);
+			int pair2 = Integer.highestOneBit(pairs & ~pair1);
+			return TWO_PAIR << 20 | rankOf(pair1) << 8 | rankOf(pair2) << 4
+					| kickers(any & ~pair1 & ~pair2, 1);
+		}
+		if (pairs != 0) {
+			int pair = Integer.highestOneBit(pairs);
+			return ONE_PAIR << 20 | rankOf(pair) << 12
+					| kickers(any & ~pair, 3);
+		}
+		return kickers(any, 5);
+	}
+
+	/**
+	 * @param ranks
+	 *            the ranks of a suit holding 5 or more cards
+	 * @return value of the best flush or straight flush
+	 */
+	static int flushValue(int ranks) {
+		int high = straightHigh(ranks);
+		if (high > 0)
+			return STRAIGHT_FLUSH << 20 | high;
+		else
+			return FLUSH << 20 | kickers(ranks, 5);
+	}
+
+	/**
+	 * @param ranks
+	 * @return the highest card of the best straight in the mask, 5 for a wheel
+	 *         and 0 if there is no straight
+	 */
+	static int straightHigh(int ranks) {
+		int straights = ranks & ranks << 1 & ranks << 2 & ranks << 3
+				& ranks << 4;
+		if (straights != 0)
+			return rankOf(Integer.highestOneBit(straights));
+		// ace can be low in A5432
+		else if ((ranks & 0x100f) == 0x100f)
+			return 5;
+		else
+			return 0;
+	}
+
+	/**
+	 * @param ranks
+	 * @param n
+	 * @return the n highest ranks in the mask, one hex digit each, in
+	 *         descending order
+	 */
+	private static int kickers(int ranks, int n) {
+		int val = 0;
+		for (int i = 0; i < n; i++) {
+			int kicker = Integer.highestOneBit(ranks);
+			ranks &= ~kicker;
+			val = val << 4 | rankOf(kicker);
+		}
+		return val;
+	}
+
+	private static int rankOf(int bit) {
+		return Integer.numberOfTrailingZeros(bit) + 2;
+	}
 }
@@ -0,0 +1,312 @@
+package ecv.poker.card;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * The lookup tables behind the {@link TableEvaluator}. They are either mapped
+ * straight from a table file, or built in memory the first time they are
+ * needed if there is no usable file.
+ *
+ * A table file is generated offline by running this class's main method. It
+ * is read through {@link FileChannel#map}, so every process on a host reading
+ * the same file shares its pages through the OS page cache, and lookups read
+ * the mapped buffer directly. Its layout, all little endian ints:
+ *
+ * <pre>
+ * magic, version, next length, value length, flush length, CRC32 of the tables
+ * next table, value table, flush table
+ * </pre>
+ *
+ * The file is found through the {@value #FILE_PROPERTY} system property.
+ */
+public class EvaluatorTables {
+
+	/** System property holding the path of the table file */
+	public static final String FILE_PROPERTY = "ecv.poker.tables";
+
+	static final int MAGIC = 0x56454b50; // "PKEV"
+	static final int VERSION = 1;
+	private static final int HEADER_INTS = 6;
+
+	private static final int RANKS = 13;
+	private static final int MAX_CARDS = 7;
+
+	private final IntBuffer next;
+	private final IntBuffer value;
+	private final IntBuffer flush;
+
+	private EvaluatorTables(IntBuffer next, IntBuffer value, IntBuffer flush) {
+		this.next = next;
+		this.value = value;
+		this.flush = flush;
+	}
+
+	// loaded the first time the tables are asked for
+	private static class Holder {
+		static final EvaluatorTables INSTANCE = load();
+	}
+
+	/**
+	 * @return the tables from the file named by {@value #FILE_PROPERTY}, or
+	 *         tables built in memory if it is missing or fails its checks
+	 */
+	public static EvaluatorTables getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	private static EvaluatorTables load() {
+		String path = System.getProperty(FILE_PROPERTY);
+		if (path != null && new File(path).isFile()) {
+			try {
+				return map(new File(path));
+			} catch (IOException e) {
+				// corrupt or out of date, fall back to building them
+			}
+		}
+		return build();
+	}
+
+	/**
+	 * Transitions of the state machine, next[state * 13 + rank]. Only states
+	 * with less than 7 cards have transitions.
+	 */
+	IntBuffer getNext() {
+		return next;
+	}
+
+	/** Best non-flush value of every state, 0 for states under 5 cards */
+	IntBuffer getValue() {
+		return value;
+	}
+
+	/** Best flush or straight flush value of a suit's rank mask */
+	IntBuffer getFlush() {
+		return flush;
+	}
+
+	/**
+	 * Map a table file into memory and check it
+	 *
+	 * @param file
+	 * @return tables reading from the mapped file
+	 * @throws IOException
+	 *             if the file can't be read, is for another version, its
+	 *             tables aren't the sizes the evaluator looks up or its
+	 *             checksum doesn't match
+	 */
+	public static EvaluatorTables map(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		MappedByteBuffer buffer;
+		try {
+			FileChannel channel = raf.getChannel();
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size());
+		} finally {
+			// the mapping stays valid after the channel is closed
+			raf.close();
+		}
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		if (buffer.capacity() < HEADER_INTS * 4)
+			throw new IOException("Table file too short: " + file);
+		IntBuffer header = buffer.asIntBuffer();
+		if (header.get(0) != MAGIC || header.get(1) != VERSION)
+			throw new IOException("Not a version " + VERSION
+					+ " table file: " + file);
+		int nextLength = header.get(2);
+		int valueLength = header.get(3);
+		int flushLength = header.get(4);
+		if (nextLength < 0 || valueLength < 0 || flushLength < 0)
+			throw new IOException("Table file has negative lengths: " + file);
+		// in a long, so lengths that wrap around an int can't match
+		long payloadBytes = 4L * ((long) nextLength + valueLength + flushLength);
+		if (buffer.capacity() != HEADER_INTS * 4 + payloadBytes)
+			throw new IOException("Table file has the wrong size: " + file);
+		if (nextLength != states(MAX_CARDS - 1) * RANKS
+				|| valueLength != states(MAX_CARDS)
+				|| flushLength != 1 << RANKS)
+			throw new IOException("Table file has the wrong table sizes: "
+					+ file);
+
+		buffer.position(HEADER_INTS * 4);
+		ByteBuffer payload = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+		if (header.get(5) != checksum(payload))
+			throw new IOException("Table file checksum mismatch: " + file);
+
+		IntBuffer ints = payload.asIntBuffer();
+		return new EvaluatorTables(slice(ints, 0, nextLength), slice(ints,
+				nextLength, valueLength), slice(ints, nextLength + valueLength,
+				flushLength));
+	}
+
+	/**
+	 * @return number of states of the state machine holding at most that
+	 *         many cards, one for each multiset of ranks with each rank at
+	 *         most 4 times
+	 */
+	static int states(int cards) {
+		// ways[n], multisets of n cards from the ranks so far
+		int[] ways = new int[cards + 1];
+		ways[0] = 1;
+		for (int r = 0; r < RANKS; r++)
+			for (int n = cards; n > 0; n--)
+				for (int count = 1; count <= 4 && count <= n; count++)
+					ways[n] += ways[n - count];
+		int total = 0;
+		for (int n = 0; n <= cards; n++)
+			total += ways[n];
+		return total;
+	}
+
+	private static IntBuffer slice(IntBuffer ints, int offset, int length) {
+		ints.limit(offset + length);
+		ints.position(offset);
+		IntBuffer slice = ints.slice();
+		ints.clear();
+		return slice;
+	}
+
+	private static int checksum(ByteBuffer payload) {
+		CRC32 crc = new CRC32();
+		ByteBuffer in = payload.duplicate();
+		byte[] chunk = new byte[8192];
+		while (in.hasRemaining()) {
+			int n = Math.min(chunk.length, in.remaining());
+			in.get(chunk, 0, n);
+			crc.update(chunk, 0, n);
+		}
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * Write the tables out in the table file format
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void write(File file) throws IOException {
+		int payloadInts = next.limit() + value.limit() + flush.limit();
+		ByteBuffer buffer = ByteBuffer.allocate(4 * (HEADER_INTS + payloadInts))
+				.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.position(HEADER_INTS * 4);
+		ByteBuffer payload = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+		IntBuffer ints = payload.asIntBuffer();
+		ints.put(next.duplicate());
+		ints.put(value.duplicate());
+		ints.put(flush.duplicate());
+
+		buffer.clear();
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(next.limit())
+				.putInt(value.limit()).putInt(flush.limit())
+				.putInt(checksum(payload));
+		buffer.clear();
+
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			FileChannel channel = out.getChannel();
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Build the tables in memory
+	 *
+	 * @return tables backed by int arrays
+	 */
+	public static EvaluatorTables build() {
+		// powers of 5, used as keys to identify rank multisets while building
+		int[] pow = new int[RANKS];
+		pow[0] = 1;
+		for (int r = 1; r < RANKS; r++)
+			pow[r] = pow[r - 1] * 5;
+
+		// breadth first from the empty hand, so states are ordered by size
+		List<Integer> keys = new ArrayList<Integer>();
+		Map<Integer, Integer> stateOf = new HashMap<Integer, Integer>();
+		keys.add(0);
+		stateOf.put(0, 0);
+		int levelStart = 0;
+		int nonTerminal = 0;
+		for (int level = 0; level < MAX_CARDS; level++) {
+			int levelEnd = keys.size();
+			for (int s = levelStart; s < levelEnd; s++) {
+				int key = keys.get(s);
+				for (int r = 0; r < RANKS; r++) {
+					if ((key / pow[r]) % 5 < 4 && !stateOf.containsKey(key + pow[r])) {
+						stateOf.put(key + pow[r], keys.size());
+						keys.add(key + pow[r]);
+					}
+				}
+			}
+			levelStart = levelEnd;
+			nonTerminal = levelEnd;
+		}
+
+		int[] next = new int[nonTerminal * RANKS];
+		int[] value = new int[keys.size()];
+		for (int s = 0; s < keys.size(); s++) {
+			int key = keys.get(s);
+			int numCards = 0;
+			int any = 0, pairs = 0, trips = 0, quads = 0;
+			for (int r = 0; r < RANKS; r++) {
+				int count = (key / pow[r]) % 5;
+				numCards += count;
+				if (count >= 1)
+					any |= 1 << r;
+				if (count >= 2)
+					pairs |= 1 << r;
+				if (count >= 3)
+					trips |= 1 << r;
+				if (count == 4)
+					quads |= 1 << r;
+				// a fifth card of a rank can't be dealt, leave it at 0
+				if (s < nonTerminal && count < 4)
+					next[s * RANKS + r] = stateOf.get(key + pow[r]);
+			}
+			if (numCards >= 5)
+				value[s] = Evaluator.rankValue(any, pairs, trips, quads);
+		}
+
+		int[] flush = new int[1 << RANKS];
+		for (int mask = 0; mask < flush.length; mask++)
+			if (Integer.bitCount(mask) >= 5)
+				flush[mask] = Evaluator.flushValue(mask);
+
+		return new EvaluatorTables(IntBuffer.wrap(next), IntBuffer.wrap(value),
+				IntBuffer.wrap(flush));
+	}
+
+	/**
+	 * Generate a table file
+	 *
+	 * @param args
+	 *            path of the file to write
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			System.err.println("usage: EvaluatorTables <table file>");
+			System.exit(1);
+		}
+		File file = new File(args[0]);
+		build().write(file);
+		// read it back so a bad file is caught here, not on a device
+		map(file);
+		System.out.println("Wrote " + file.length() + " bytes to " + file);
+	}
+}
@@ -0,0 +1,227 @@
+package ecv.poker.card;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Scores every 5, 6 or 7 card hand in the deck, split across threads, and
+ * counts how many fall in each category. The counts can be checked against
+ * the well known ones, so a change to the {@link Evaluator} can be checked
+ * against every hand rather than a sample. Run main to do so.
+ *
+ * The work is split by the two lowest cards of each hand, 1,326 tasks shared
+ * by a fixed pool of threads. Android only has a fork/join pool from API 21,
+ * so a plain executor is used.
+ */
+public class HandEnumerator {
+
+	/** Number of hands with each category, indexed by the Evaluator constants */
+	public static final long[] FIVE_CARD_COUNTS = { 1302540, 1098240, 123552,
+			54912, 10200, 5108, 3744, 624, 40 };
+	public static final long[] SEVEN_CARD_COUNTS = { 23294460, 58627800,
+			31433400, 6461620, 6180020, 4047644, 3473184, 224848, 41584 };
+
+	/**
+	 * Given every hand as it is scored, for example to fill a table. Called
+	 * from all of the worker threads at once, so must be thread safe.
+	 */
+	public interface HandVisitor {
+		/**
+		 * @param cards
+		 *            the hand as a {@link CardSet}
+		 * @param value
+		 *            its value from {@link Evaluator#evaluate(long)}
+		 */
+		void visit(long cards, int value);
+	}
+
+	/**
+	 * Totals over every hand enumerated
+	 */
+	public static class Result {
+		private final long hands;
+		private final long[] categories;
+		private final long checksum;
+
+		Result(long hands, long[] categories, long checksum) {
+			this.hands = hands;
+			this.categories = categories;
+			this.checksum = checksum;
+		}
+
+		public long getHands() {
+			return hands;
+		}
+
+		/**
+		 * @param category
+		 *            one of the Evaluator constants, HIGH_CARD to
+		 *            STRAIGHT_FLUSH
+		 * @return number of hands in that category
+		 */
+		public long getCount(int category) {
+			return categories[category];
+		}
+
+		/**
+		 * @return a hash of every hand together with its value. It does not
+		 *         depend on the order hands were scored in, so is the same
+		 *         for any number of threads, and changes if any hand's value
+		 *         does.
+		 */
+		public long getChecksum() {
+			return checksum;
+		}
+
+		/**
+		 * @return true if the category counts match the reference ones
+		 */
+		public boolean matches(long[] reference) {
+			return Arrays.equals(categories, reference);
+		}
+	}
+
+	private HandEnumerator() {
+	}
+
+	/**
+	 * Score every 7 card hand on all available processors
+	 */
+	public static Result enumerate() throws InterruptedException {
+		return enumerate(7, Runtime.getRuntime().availableProcessors(), null);
+	}
+
+	/**
+	 * @param cards
+	 *            cards in each hand, 5 to 7
+	 * @param threads
+	 *            number of threads to score hands on
+	 * @param visitor
+	 *            given each hand and its value, or null
+	 * @return totals over all hands
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the threads to finish,
+	 *             which are then stopped
+	 */
+	public static Result enumerate(final int cards, int threads,
+			final HandVisitor visitor) throws InterruptedException {
+		if (cards < 5 || cards > 7)
+			throw new IllegalArgumentException("Hands hold 5 to 7 cards: "
+					+ cards);
+		if (threads < 1)
+			throw new IllegalArgumentException("No threads: " + threads);
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			// largest tasks are submitted first, so the small ones even out
+			// the finish
+			List<Future<Tally>> tasks = new ArrayList<Future<Tally>>(1326);
+			for (int i = 0; i < 52; i++) {
+				for (int j = i + 1; j < 52; j++) {
+					final long prefix = 1L << i | 1L << j;
+					final int from = j + 1;
+					tasks.add(pool.submit(new Callable<Tally>() {
+						@Override
+						public Tally call() {
+							Tally tally = new Tally();
+							deal(prefix, from, cards - 2, visitor, tally);
+							return tally;
+						}
+					}));
+				}
+			}
+
+			Tally total = new Tally();
+			for (Future<Tally> task : tasks) {
+				Tally tally;
+				try {
+					tally = task.get();
+				} catch (ExecutionException e) {
+					throw new RuntimeException(e.getCause());
+				}
+				total.hands += tally.hands;
+				total.checksum += tally.checksum;
+				for (int c = 0; c < total.categories.length; c++)
+					total.categories[c] += tally.categories[c];
+			}
+			return new Result(total.hands, total.categories, total.checksum);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Add every remaining card from index from on to hand, until it is
+	 * missing no more
+	 */
+	private static void deal(long hand, int from, int missing,
+			HandVisitor visitor, Tally tally) {
+		if (missing == 0) {
+			int value = Evaluator.evaluate(hand);
+			tally.hands++;
+			tally.categories[value >>> 20]++;
+			tally.checksum += mix(hand * 0x9e3779b97f4a7c15L ^ value);
+			if (visitor != null)
+				visitor.visit(hand, value);
+			return;
+		}
+		for (int c = from; c <= 52 - missing; c++)
+			deal(hand | 1L << c, c + 1, missing - 1, visitor, tally);
+	}
+
+	/**
+	 * Spread the bits of x over the whole long, so sums of these don't cancel
+	 */
+	private static long mix(long x) {
+		x = (x ^ x >>> 30) * 0xbf58476d1ce4e5b9L;
+		x = (x ^ x >>> 27) * 0x94d049bb133111ebL;
+		return x ^ x >>> 31;
+	}
+
+	private static class Tally {
+		long hands;
+		long checksum;
+		final long[] categories = new long[Evaluator.STRAIGHT_FLUSH + 1];
+	}
+
+	/**
+	 * Score every hand and compare the counts to the reference ones.
+	 *
+	 * @param args
+	 *            optional number of cards per hand, 5 to 7, default 7, and
+	 *            number of threads, default one per processor
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int cards = args.length > 0 ? Integer.parseInt(args[0]) : 7;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime
+				.getRuntime().availableProcessors();
+		String[] names = { "High card", "One pair", "Two pair", "Trips",
+				"Straight", "Flush", "Full house", "Quads", "Straight flush" };
+		long[] reference = cards == 5 ? FIVE_CARD_COUNTS
+				: cards == 7 ? SEVEN_CARD_COUNTS : null;
+
+		long start = System.nanoTime();
+		Result result = enumerate(cards, threads, null);
+		long millis = (System.nanoTime() - start) / 1000000;
+
+		for (int c = names.length - 1; c >= 0; c--) {
+			System.out.printf("%-15s %,12d", names[c], result.getCount(c));
+			if (reference != null && reference[c] != result.getCount(c))
+				System.out.printf("  expected %,d", reference[c]);
+			System.out.println();
+		}
+		System.out.printf("%-15s %,12d%n", "Total", result.getHands());
+		System.out.printf("Checksum %016x%n", result.getChecksum());
+		System.out.printf("%d ms on %d threads%n", millis, threads);
+		if (reference != null && !result.matches(reference)) {
+			System.out.println("Counts do not match");
+			System.exit(1);
+		}
+	}
+}
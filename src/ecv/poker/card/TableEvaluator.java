@@ -0,0 +1,145 @@
+package ecv.poker.card;
+
+import java.nio.IntBuffer;
+import java.util.List;
+
+/**
+ * Lookup table version of {@link Evaluator}. Produces exactly the same
+ * hexadecimal values, but instead of trying all 21 five card combinations it
+ * walks a precomputed state machine over the card ranks and checks the suits
+ * against a table of flushes.
+ *
+ * Each state of the machine is a multiset of ranks (at most 4 of each), so the
+ * order the cards are added in does not matter. States holding 5 or more cards
+ * store the value of the best non-flush hand they make. A flush is only
+ * possible when one suit holds 5 or more cards, and it is looked up from that
+ * suit's 13 bit rank mask.
+ *
+ * Scoring 5, 6 or 7 cards takes one table read per card, plus one per suit.
+ * The tables themselves come from {@link EvaluatorTables}. They are never
+ * written to after loading, so like the Evaluator this class creates no
+ * objects, leaves its arguments alone and can be used by any number of threads.
+ */
+public class TableEvaluator {
+
+	private static final int RANKS = 13;
+	private static final int RANK_MASK = (1 << RANKS) - 1;
+
+	/**
+	 * Transitions of the state machine, NEXT[state * RANKS + rank]. Only
+	 * states with less than 7 cards have transitions.
+	 */
+	private static final IntBuffer NEXT;
+	/** Best non-flush value of every state, 0 for states under 5 cards */
+	private static final IntBuffer VALUE;
+	/** Best flush or straight flush value of a suit's rank mask */
+	private static final IntBuffer FLUSH;
+
+	static {
+		EvaluatorTables tables = EvaluatorTables.getInstance();
+		NEXT = tables.getNext();
+		VALUE = tables.getValue();
+		FLUSH = tables.getFlush();
+	}
+
+	/**
+	 * Same as {@link Evaluator#evaluate(List)}, without sorting the list. Less
+	 * than 5 cards can't be looked up, nor more than 7, which the tables stop
+	 * at, and are passed on to the Evaluator.
+	 *
+	 * @param cards
+	 * @return an evaluation of the cards as an integer
+	 */
+	public static int evaluate(List<Card> cards) {
+		if (cards.size() < 5 || cards.size() > 7)
+			return Evaluator.evaluate(cards);
+
+		int state = 0;
+		long suits = 0;
+		for (int i = 0; i < cards.size(); i++) {
+			Card c = cards.get(i);
+			state = NEXT.get(state * RANKS + c.getRank() - 2);
+			suits |= c.getBit();
+		}
+		return best(VALUE.get(state), suits);
+	}
+
+	/**
+	 * Same as {@link Evaluator#evaluate(List, List)}. Less than 5 or more than
+	 * 7 cards in all are passed on to the Evaluator.
+	 *
+	 * @param holeCards
+	 * @param community
+	 * @return an evaluation of the cards, or -1 if the player has folded
+	 */
+	public static int evaluate(List<Card> holeCards, List<Card> community) {
+		// folding returns -1 (player loses)
+		if (holeCards.size() == 0)
+			return -1;
+		int size = holeCards.size() + community.size();
+		if (size < 5 || size > 7)
+			return Evaluator.evaluate(holeCards, community);
+
+		int state = 0;
+		long suits = 0;
+		for (int i = 0; i < community.size(); i++) {
+			Card c = community.get(i);
+			state = NEXT.get(state * RANKS + c.getRank() - 2);
+			suits |= c.getBit();
+		}
+		for (int i = 0; i < holeCards.size(); i++) {
+			Card c = holeCards.get(i);
+			state = NEXT.get(state * RANKS + c.getRank() - 2);
+			suits |= c.getBit();
+		}
+		return best(VALUE.get(state), suits);
+	}
+
+	/**
+	 * A flush beats everything below a full house, so the better of the rank
+	 * value and any suit's flush value is the value of the hand.
+	 */
+	private static int best(int val, long suits) {
+		for (int s = 0; s < 4; s++) {
+			int flush = FLUSH.get((int) (suits >>> (s * RANKS)) & RANK_MASK);
+			if (flush > val)
+				val = flush;
+		}
+		return val;
+	}
+
+	/*
+	 * -----------------------------------------------------------
+	 * Raw access to the tables, for walking the state machine a card at a
+	 * time. The empty hand is state 0.
+	 * ----------------------------------------------------------
+	 */
+
+	/**
+	 * @param state
+	 *            a state holding less than 7 cards
+	 * @param rank
+	 *            0 for a deuce to 12 for an ace
+	 * @return the state after adding a card of that rank
+	 */
+	static int next(int state, int rank) {
+		return NEXT.get(state * RANKS + rank);
+	}
+
+	/**
+	 * @param state
+	 * @return the best non-flush value of the state's cards
+	 */
+	static int value(int state) {
+		return VALUE.get(state);
+	}
+
+	/**
+	 * @param ranks
+	 *            13 bit rank mask of a suit
+	 * @return the best flush in the suit, or 0 if it has under 5 cards
+	 */
+	static int flush(int ranks) {
+		return FLUSH.get(ranks);
+	}
+}
@@ -5,17 +5,20 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
-import ecv.poker.R;
+import ecv.poker.card.Board;
 import ecv.poker.card.Card;
-import ecv.poker.card.Evaluator;
+import ecv.poker.card.CardSet;
 import ecv.poker.player.AIPlayer;
 import ecv.poker.player.Player;
-import ecv.poker.view.GameView;
 
 /**
  * A representation of a game of poker. A game has a players, a deck of cards,
  * and community cards all players can use, and a pot that goes to the winning
  * hand
+ *
+ * The game takes its settings from a {@link GameConfig} and tells a
+ * {@link GameListener} what happens, so it runs the same with or without a
+ * view to show it.
  * 
  * @author Evan
  */
@@ -39,30 +42,31 @@ public class Game {
 	private Action prevAction, curAction;
 	private int ante;
 	private int startingChips;
-	private GameView view;
-
-	public Game(GameView view) {
-		this.view = view;
+	// final, as the bot reads the config from its own threads
+	private final GameConfig config;
+	private final GameListener listener;
+	// what the game looked like after it last changed, for other threads
+	private volatile GameState state;
+
+	public Game(GameConfig config, GameListener listener) {
+		this.config = config;
+		this.listener = listener;
 		random = new Random();
 
-		ante = view.getSettings().getInt("ante", 10);
-		startingChips = view.getSettings().getInt("chips", 1000);
+		ante = config.getInt("ante", 10);
+		startingChips = config.getInt("chips", 1000);
 		
 		deck = new ArrayList<Card>(52);
-		for (int i = 100; i <= 400; i += 100) {
-			for (int j = 2; j <= 14; j++) {
-				deck.add(new Card(i + j));
-			}
-		}
+		for (int i = 0; i < 52; i++)
+			deck.add(Card.get(i));
 		communityCards = new ArrayList<Card>(5);
 		
-		user = new Player(this, view.getResources().getString(R.string.you),
-				startingChips);
-		bot = new AIPlayer(this, view.getResources().getString(
-				R.string.computer), startingChips);
+		user = new Player(this, config.getUserName(), startingChips);
+		bot = new AIPlayer(this, config.getBotName(), startingChips);
 		
 		myTurn = random.nextBoolean();
 		handOver = false;
+		publish();
 	}
 
 	public void reset() {
@@ -71,8 +75,12 @@ public class Game {
 		setupHand();
 	}
 
-	public GameView getView() {
-		return view;
+	public GameConfig getConfig() {
+		return config;
+	}
+
+	public GameListener getListener() {
+		return listener;
 	}
 
 	public Random getRandom() {
@@ -83,7 +91,6 @@ public class Game {
 	 * Deal out cards to players and start the round
 	 */
 	public void setupHand() {
-		view.playSound(view.shuffleSound);
 		handOver = false;
 		deck.addAll(user.getCards());
 		deck.addAll(bot.getCards());
@@ -101,6 +108,10 @@ public class Game {
 		bot.addChips(-ante);
 		pot = ante * 2;
 		curBet = 0;
+		prevAction = null;
+		curAction = null;
+		publish();
+		listener.handStarted();
 
 		// bot can start evaluating hand
 		bot.calculateExpectedValue();
@@ -110,19 +121,22 @@ public class Game {
 	}
 
 	/**
-	 * Deal next card if applicable and make the bot play, or end the hand
+	 * Deal next card if applicable and make the bot play, or end the hand.
+	 * Called once the turn has passed.
 	 */
 	public void makeNextMove() {
 		if (curAction == Action.FOLD)
 			endHand();
-		if (isBettingDone()) {
-			dealNextCard();
+		else if (isBettingDone()) {
 			// starts a new round of betting, clear out previous actions
 			prevAction = null;
 			curAction = null;
 			curBet = 0;
-		}
-		if (!myTurn)
+			dealNextCard();
+		} else
+			publish();
+		// the hand may have just ended, with nothing left for the bot to play
+		if (!myTurn && !handOver)
 			bot.makeMove();
 	}
 
@@ -132,18 +146,20 @@ public class Game {
 	 */
 	public void dealNextCard() {
 		if (communityCards.size() < 3) {
-			view.playSound(view.dealSound);
 			communityCards.add(deal());
 			communityCards.add(deal());
 			communityCards.add(deal());
+			publish();
+			listener.cardsDealt();
 			// if a player is all in, keep dealing out cards
 			if (user.getChips() == 0 || bot.getChips() == 0)
 				dealNextCard();
 			else
 				bot.calculateExpectedValue();
 		} else if (communityCards.size() < 5) {
-			view.playSound(view.dealSound);
 			communityCards.add(deal());
+			publish();
+			listener.cardsDealt();
 			if (user.getChips() == 0 || bot.getChips() == 0)
 				dealNextCard();
 			else
@@ -173,28 +189,30 @@ public class Game {
 	 */
 	public void endHand() {
 		// determine who won
-		int userRank = Evaluator.evaluate(user.getCards(), communityCards);
-		int botRank = Evaluator.evaluate(bot.getCards(), communityCards);
+		Board board = Board.of(communityCards);
+		int userRank = board.evaluate(user.getCards());
+		int botRank = board.evaluate(bot.getCards());
 
-		String format = view.getResources().getString(R.string.award_chips);
+		Player winner;
 		if (userRank > botRank) {
 			user.addChips(pot);
-			view.toast(String.format(format, user.getName(), pot));
+			winner = user;
 		} else if (userRank < botRank) {
 			bot.addChips(pot);
-			view.toast(String.format(format, bot.getName(), pot));
+			winner = bot;
 		} else {
 			user.addChips(pot / 2);
 			bot.addChips(pot / 2);
-			view.toast(view.getResources().getString(R.string.split_pot));
+			winner = null;
 		}
 
-		if (user.getChips() <= 0)
-			view.makeEndGameDialog();
-		else if (bot.getChips() <= 0)
-			view.makeEndGameDialog();
-
 		handOver = true;
+		publish();
+		listener.potAwarded(winner, pot);
+		if (user.getChips() <= 0 || bot.getChips() <= 0)
+			listener.gameOver();
+		// nothing left for the bot to decide
+		bot.cancel();
 	}
 
 	public Card deal() {
@@ -205,6 +223,10 @@ public class Game {
 		return myTurn;
 	}
 
+	/**
+	 * Pass the turn, which other threads see once {@link #makeNextMove()}
+	 * runs
+	 */
 	public void setMyTurn(boolean myTurn) {
 		this.myTurn = myTurn;
 	}
@@ -279,12 +301,42 @@ public class Game {
 	}
 
 	/**
-	 * Set the current action, The old value of curAction is sent to prevAction
+	 * @return the game as it was after it last changed. Safe to read from
+	 *         any thread, unlike the game itself, which only the game's
+	 *         thread may touch.
+	 */
+	public GameState getState() {
+		return state;
+	}
+
+	/**
+	 * Replace the state other threads see with the game as it is now. Called
+	 * once at the end of each move, deal or hand, from the game's thread, so
+	 * no half made change is seen.
+	 */
+	private void publish() {
+		long community = CardSet.of(communityCards);
+		long botCards = CardSet.of(bot.getCards());
+		// the user's cards are unseen with the deck, even once folded, so the
+		// bot can't tell them apart
+		state = new GameState(CardSet.DECK & ~(community | botCards),
+				community, botCards, pot, curBet, user.getChips(),
+				bot.getChips(), prevAction, curAction, myTurn, handOver);
+	}
+
+	/**
+	 * Set the current action, The old value of curAction is sent to prevAction.
+	 * This completes a player's move, so the chips, pot and bet must be
+	 * settled first.
 	 * 
 	 * @param action
 	 */
 	public void setAction(Action action) {
 		prevAction = curAction;
 		curAction = action;
+		publish();
+		// the user acts on their turn, the bot hands the turn back after
+		if (myTurn)
+			bot.opponentActed(action);
 	}
 }
@@ -0,0 +1,37 @@
+package ecv.poker.game;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+
+/**
+ * What a game needs from wherever it runs: its settings, its players' names,
+ * the files the bot reads and the thread the game is played on. A game only
+ * knows its surroundings through this and a {@link GameListener}, so given
+ * ones that don't use Android it runs on a plain JVM.
+ */
+public interface GameConfig {
+
+	/**
+	 * @return the setting stored under key, or defValue if there is none
+	 */
+	int getInt(String key, int defValue);
+
+	String getUserName();
+
+	String getBotName();
+
+	/**
+	 * @param name
+	 *            file name, such as the bot's trained strategy
+	 * @throws IOException
+	 *             if there is no such file or it can't be opened
+	 */
+	InputStream openAsset(String name) throws IOException;
+
+	/**
+	 * @return runs tasks on the thread the game is played on, such as a move
+	 *         the bot chose on another thread
+	 */
+	Executor getGameThread();
+}
@@ -0,0 +1,39 @@
+package ecv.poker.game;
+
+import ecv.poker.player.Player;
+
+/**
+ * Told what happens in a game as it is played, to show it to the user. Every
+ * call is made on the game's thread, after the game has changed.
+ */
+public interface GameListener {
+
+	/**
+	 * The cards were shuffled and a new hand dealt
+	 */
+	void handStarted();
+
+	/**
+	 * The flop, turn or river was dealt
+	 */
+	void cardsDealt();
+
+	/**
+	 * @param amount
+	 *            chips called, bet or raised by, 0 for a fold or check
+	 */
+	void playerActed(Player player, Game.Action action, int amount);
+
+	/**
+	 * @param winner
+	 *            the player who won the pot, null if it was split
+	 * @param pot
+	 *            chips in the pot
+	 */
+	void potAwarded(Player winner, int pot);
+
+	/**
+	 * A player ran out of chips
+	 */
+	void gameOver();
+}
@@ -0,0 +1,100 @@
+package ecv.poker.game;
+
+import ecv.poker.card.CardSet;
+
+/**
+ * The state of a game at one moment, which never changes. The game publishes
+ * a new one every time it changes, so the AI can work from it on any thread
+ * without locks or copying the game's lists. Cards are kept as
+ * {@link CardSet}s.
+ *
+ * It holds only what the bot may know: the user's hole cards are among the
+ * unseen cards, along with those left to deal, and can't be told apart.
+ */
+public final class GameState {
+
+	private final long unseen;
+	private final long communityCards;
+	private final long botCards;
+	private final int pot;
+	private final int curBet;
+	private final int userChips;
+	private final int botChips;
+	private final Game.Action prevAction, curAction;
+	private final boolean myTurn;
+	private final boolean handOver;
+
+	GameState(long unseen, long communityCards, long botCards, int pot,
+			int curBet, int userChips, int botChips,
+			Game.Action prevAction, Game.Action curAction, boolean myTurn,
+			boolean handOver) {
+		this.unseen = unseen;
+		this.communityCards = communityCards;
+		this.botCards = botCards;
+		this.pot = pot;
+		this.curBet = curBet;
+		this.userChips = userChips;
+		this.botChips = botChips;
+		this.prevAction = prevAction;
+		this.curAction = curAction;
+		this.myTurn = myTurn;
+		this.handOver = handOver;
+	}
+
+	/**
+	 * @return every card not on the board or in the bot's hand: those left
+	 *         to deal and the user's hole cards
+	 */
+	public long getUnseen() {
+		return unseen;
+	}
+
+	public long getCommunityCards() {
+		return communityCards;
+	}
+
+	/**
+	 * @return the bot's hole cards, empty once it folds
+	 */
+	public long getBotCards() {
+		return botCards;
+	}
+
+	public int getPot() {
+		return pot;
+	}
+
+	public int getCurBet() {
+		return curBet;
+	}
+
+	public int getUserChips() {
+		return userChips;
+	}
+
+	public int getBotChips() {
+		return botChips;
+	}
+
+	/**
+	 * @return the action before the last on this street, or null
+	 */
+	public Game.Action getPrevAction() {
+		return prevAction;
+	}
+
+	/**
+	 * @return the last action on this street, or null
+	 */
+	public Game.Action getCurAction() {
+		return curAction;
+	}
+
+	public boolean isMyTurn() {
+		return myTurn;
+	}
+
+	public boolean isHandOver() {
+		return handOver;
+	}
+}
@@ -1,14 +1,33 @@
 package ecv.poker.player;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
-import android.os.Handler;
-import android.util.Log;
+import ecv.poker.ai.AIExecutor;
+import ecv.poker.ai.BettingTree;
+import ecv.poker.ai.BucketTable;
+import ecv.poker.ai.Equity;
+import ecv.poker.ai.EquityCache;
+import ecv.poker.ai.EquityCalculator;
+import ecv.poker.ai.EquitySimulator;
+import ecv.poker.ai.EquitySimulator.Sampling;
+import ecv.poker.ai.ExpectimaxSearch;
+import ecv.poker.ai.OpponentRange;
+import ecv.poker.ai.PreflopEquity;
+import ecv.poker.ai.StrategyTable;
 import ecv.poker.card.Card;
-import ecv.poker.card.Evaluator;
+import ecv.poker.card.CardSet;
 import ecv.poker.game.Game;
+import ecv.poker.game.GameConfig;
+import ecv.poker.game.GameState;
 
 /**
  * A player controlled by artificial intelligence.
@@ -18,147 +37,677 @@ import ecv.poker.game.Game;
  */
 public class AIPlayer extends Player {
 
+	/** Default time allowed for a move, in milliseconds */
+	public static final int DEFAULT_THINK_TIME = 1000;
+	// the game is heads up
+	private static final int OPPONENTS = 1;
+	private static final Logger LOG = Logger.getLogger("POKER");
+	// strategy trained by CfrSolver, in assets
+	private static final String STRATEGY_ASSET = "strategy.bin";
+	// flop and turn buckets made by BucketTableGenerator, in assets if the
+	// strategy was found with them
+	private static final String BUCKETS_ASSET = "buckets.bin";
+
+	// null if there is no strategy asset, in which case the bot goes by its
+	// rules
+	private static StrategyTable strategy;
+	private static boolean strategyLoaded;
+
 	private float expectedValue;
-	private boolean moveQueued;
-	private Thread aiThread;
-	private Handler handler;
+	// the deals expectedValue was found from, null before the flop
+	private Equity equity;
+	// what the user may hold, going by their actions this hand
+	private OpponentRange range = new OpponentRange();
+	// guards expectedValue, equity, task, pending, searchTask, rangeChanged
+	// and the task's finished flag
+	private final Object lock = new Object();
+	// set when the user acts, so the value no longer fits their range
+	private boolean rangeChanged;
+	// the calculation for the current street, null if there is none
+	private EquityTask task;
+	// the move waiting on the calculation or its deadline, if any
+	private DecisionTask pending;
+	// the search pending runs on the AIExecutor, if any, for interrupting it
+	private Future<?> searchTask;
+	// most deals to simulate, fewer when the decision is clear sooner
 	private int numSimulations;
+	private int exactThreshold;
+	private int thinkTime;
 	private float bluffFrequency;
+	// seeds the simulations and draws bluffs and strategy moves, apart from
+	// the game's Random so thinking, on whichever thread, doesn't change the
+	// deal
+	private Random random;
+	// where the hand is in the strategy's betting tree, -1 once it has left
+	// it, and which of its players the bot is
+	private int node = -1;
+	private int seat;
+	// set when the user checks, so a check from the bot ends the street
+	private boolean checkedTo;
 
 	public AIPlayer(Game game, String name, int startingChips) {
 		super(game, name, startingChips);
-		numSimulations = game.getView().getSettings()
-				.getInt("simulations", 500);
-		bluffFrequency = game.getView().getSettings().getInt("bluff", 20) / 100f;
-		handler = new Handler();
+		GameConfig config = game.getConfig();
+		numSimulations = config.getInt("simulations", 500);
+		exactThreshold = config.getInt("exact_threshold",
+				EquityCalculator.DEFAULT_EXACT_THRESHOLD);
+		thinkTime = config.getInt("think_time", DEFAULT_THINK_TIME);
+		bluffFrequency = config.getInt("bluff", 20) / 100f;
+		random = new Random();
+		loadStrategy(config);
+	}
+
+	/**
+	 * Read the trained strategy from assets, once for every bot
+	 */
+	private static synchronized void loadStrategy(GameConfig config) {
+		if (strategyLoaded)
+			return;
+		strategyLoaded = true;
+		try {
+			InputStream in = config.openAsset(STRATEGY_ASSET);
+			try {
+				strategy = StrategyTable.read(in, loadBuckets(config));
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			LOG.fine("no strategy, playing by rules: " + e);
+		}
+	}
+
+	/**
+	 * @return the flop and turn buckets in assets, or null if there are none
+	 */
+	private static BucketTable loadBuckets(GameConfig config)
+			throws IOException {
+		InputStream in;
+		try {
+			in = config.openAsset(BUCKETS_ASSET);
+		} catch (IOException e) {
+			return null;
+		}
+		try {
+			return BucketTable.read(in);
+		} finally {
+			in.close();
+		}
 	}
 
 	public float getExpectedValue() {
-		return expectedValue;
+		synchronized (lock) {
+			return expectedValue;
+		}
 	}
 
 	/**
-	 * Run simulations in new thread to determine Probability of winning the
-	 * hand, and act on that information.
+	 * Make a move within the think time setting. The move is made at once if
+	 * the probability of winning is already known well enough, otherwise
+	 * from the game's thread once it is, or once time is up.
 	 */
 	public void makeMove() {
-		// if the thread hasn't finished calculating the value,
-		// tell it to call doBestMove when it's done
-		synchronized (aiThread) {
-			if (aiThread.isAlive())
-				moveQueued = true;
-			else
-				doBestMove();
-		}
+		Future<Decision> decision = decide(thinkTime, true);
+		if (decision.isDone() && !decision.isCancelled())
+			play(getDecision(decision));
 	}
 
-	private void doBestMove() {
+	/**
+	 * Choose a move for the current bet and pot without making it. The
+	 * probability of winning keeps being refined until the deadline, and the
+	 * move is chosen on the best estimate there is then, or sooner if the
+	 * estimate settles first. On the river, or facing a bet that puts a
+	 * player all in, the move is searched for instead, on another thread
+	 * until the deadline.
+	 *
+	 * @param budget
+	 *            most milliseconds until the move is chosen
+	 * @return completed with the move, or cancelled if a new card is dealt
+	 *         or the hand ends first
+	 */
+	public Future<Decision> decide(long budget) {
+		return decide(budget, false);
+	}
+
+	/**
+	 * @param play
+	 *            true to make the move from the game's thread if it isn't
+	 *            chosen at once
+	 */
+	private Future<Decision> decide(long budget, boolean play) {
+		// the game doesn't change while the bot is to move, but the move may
+		// be chosen on another thread
+		final GameState state = getGame().getState();
+		final int curBet = state.getCurBet();
+		final int pot = state.getPot();
+		final int minBet = getGame().getMinBetAllowed();
+
 		// determine how much to bet...try half of current pot (3:1 odds)
 		// otherwise make it the min/max bet possible
-		int betSize = getGame().getPot() / 2;
+		int betSize = pot / 2;
 		if(betSize > getGame().getMaxBetAllowed())
 			betSize = getGame().getMaxBetAllowed();
 		else if(betSize < getGame().getMinBetAllowed())
 			betSize = getGame().getMinBetAllowed();
-		
+
 		// consider amount needed to call bet and raise more
-		int raiseSize = getGame().getCurBet();
-		if(raiseSize + getGame().getCurBet() > getGame().getMaxBetAllowed())
-			raiseSize = getGame().getMaxBetAllowed() - getGame().getCurBet();
-			
-		if (getGame().getCurBet() == 0) {
+		int raiseSize = curBet;
+		if(raiseSize + curBet > getGame().getMaxBetAllowed())
+			raiseSize = getGame().getMaxBetAllowed() - curBet;
+
+		final int bet = betSize, raise = raiseSize;
+		// play moves on the game's thread, so the node won't change before
+		// this runs
+		final int at = isCovered(node) ? node : -1;
+		// nothing is bet after this move: search it through
+		final boolean searching = CardSet.size(state.getCommunityCards()) == 5
+				|| curBet > 0 && (curBet >= state.getBotChips() || state
+						.getUserChips() == 0);
+		// the range changes on the game's thread while the search runs
+		final OpponentRange opponents = searching ? new OpponentRange(range)
+				: null;
+		final boolean checked = checkedTo;
+		final long deadline = System.nanoTime()
+				+ TimeUnit.MILLISECONDS.toNanos(budget);
+		DecisionTask decision = new DecisionTask(new Callable<Decision>() {
+			@Override
+			public Decision call() throws InterruptedException {
+				Decision searched = searching ? search(state, opponents,
+						checked, minBet, deadline) : null;
+				return searched != null ? searched : choose(at, state, bet,
+						raise);
+			}
+		}, play);
+
+		synchronized (lock) {
+			cancelDecision();
+			boolean idle = task == null || task.finished;
+			if (searching) {
+				// sampling runouts can take until the deadline, which is too
+				// long to hold up the game's thread or the lock. Should it
+				// wait behind a task, the deadline runs it instead, which
+				// stops drawing runouts at once.
+				searchTask = AIExecutor.getInstance().submit(decision);
+			} else if (at >= 0 || idle && isDecided()) {
+				// nothing left to work out, or the strategy doesn't need it
+				decision.run();
+				return decision;
+			} else if (idle) {
+				// the bet changed since the value was found, and it is too
+				// close to call against the new pot odds: simulate more.
+				// Deals against an older range don't count.
+				submit(new EquityTask(rangeChanged ? null : equity,
+						getThresholds()));
+			}
+			pending = decision;
+		}
+		AIExecutor.getInstance().schedule(decision, budget,
+				TimeUnit.MILLISECONDS);
+		return decision;
+	}
+
+	/**
+	 * Stop working out the value of the hand, because it is over or a new
+	 * card was dealt
+	 */
+	public void cancel() {
+		synchronized (lock) {
+			if (task != null)
+				AIExecutor.getInstance().cancel(task.future);
+			task = null;
+			cancelDecision();
+		}
+	}
+
+	/**
+	 * Drop the move waiting to be chosen, interrupting its search if there is
+	 * one. Called holding the lock.
+	 */
+	private void cancelDecision() {
+		// cancelled first, so an interrupted search has no move to play
+		if (pending != null)
+			pending.cancel(false);
+		pending = null;
+		AIExecutor.getInstance().cancel(searchTask);
+		searchTask = null;
+	}
+
+	/**
+	 * Narrow down what the user may hold, from an action they just took
+	 */
+	public void opponentActed(Game.Action action) {
+		advance(action);
+		checkedTo = action == Game.Action.CHECK;
+		long community = getGame().getState().getCommunityCards();
+		switch (action) {
+		case BET:
+		case RAISE:
+			range.bet(community);
+			break;
+		case CALL:
+			range.call(community);
+			break;
+		case CHECK:
+			range.check(community);
+			break;
+		default:
+			return;
+		}
+		// whatever is being worked out is against the old range
+		cancel();
+		synchronized (lock) {
+			rangeChanged = true;
+		}
+	}
+
+	private void submit(EquityTask next) {
+		synchronized (lock) {
+			rangeChanged = false;
+			task = next;
+			next.future = AIExecutor.getInstance().submit(next);
+		}
+	}
+
+	/**
+	 * Follow an action by either player down the strategy's betting tree
+	 */
+	private void advance(Game.Action action) {
+		if (node >= 0)
+			node = strategy.getTree().next(node, toTreeAction(action));
+	}
+
+	private static int toTreeAction(Game.Action action) {
+		switch (action) {
+		case FOLD:
+			return BettingTree.FOLD;
+		case CHECK:
+			return BettingTree.CHECK;
+		case CALL:
+			return BettingTree.CALL;
+		case BET:
+			return BettingTree.BET;
+		default:
+			return BettingTree.RAISE;
+		}
+	}
+
+	/**
+	 * @return true if the strategy has a move for the bot at the node, on the
+	 *         street being played
+	 */
+	private boolean isCovered(int at) {
+		if (at < 0)
+			return false;
+		BettingTree tree = strategy.getTree();
+		int cards = getGame().getCommunityCards().size();
+		int street = cards == 0 ? BettingTree.PREFLOP : cards - 2;
+		return tree.isDecision(at) && tree.getPlayer(at) == seat
+				&& tree.getStreet(at) == street;
+	}
+
+	/**
+	 * @return the expected values choose compares against, given the
+	 *         current bet and pot
+	 */
+	private float[] getThresholds() {
+		if (getGame().getCurBet() == 0)
+			return new float[] { 0.5f };
+		float potOdds = (float) getGame().getCurBet()
+				/ (getGame().getCurBet() + getGame().getPot());
+		return new float[] { potOdds, 1.5f * potOdds };
+	}
+
+	/**
+	 * @return true if more simulations can't change what choose does
+	 */
+	private boolean isDecided() {
+		if (rangeChanged)
+			return false;
+		return equity == null || equity.isExact()
+				|| equity.getTrials() >= numSimulations
+				|| EquitySimulator.isSettled(equity, getThresholds());
+	}
+
+	/**
+	 * Pick a move from the strategy at the node if there is one, otherwise on
+	 * the expected value as it is now
+	 *
+	 * @param at
+	 *            node of the strategy's betting tree the bot is at, or -1 to
+	 *            go by the rules
+	 * @param state
+	 *            the game when the move was asked for
+	 * @param betSize
+	 *            amount to bet with nothing to call
+	 * @param raiseSize
+	 *            amount to raise by, 0 if the bot can't raise
+	 */
+	private Decision choose(int at, GameState state, int betSize,
+			int raiseSize) {
+		int curBet = state.getCurBet();
+		int pot = state.getPot();
+		float value;
+		long trials;
+		synchronized (lock) {
+			value = expectedValue;
+			trials = equity == null ? 0 : equity.getTrials();
+		}
+
+		if (at >= 0) {
+			int bucket = strategy.getCardAbstraction().bucket(
+					state.getBotCards(), state.getCommunityCards());
+			switch (strategy.choose(at, bucket, random)) {
+			case BettingTree.FOLD:
+				return new Decision(Game.Action.FOLD, 0, value, trials);
+			case BettingTree.CHECK:
+				return new Decision(Game.Action.CHECK, 0, value, trials);
+			case BettingTree.CALL:
+				return new Decision(Game.Action.CALL, 0, value, trials);
+			case BettingTree.BET:
+				// short of chips to bet
+				if (betSize == 0)
+					return new Decision(Game.Action.CHECK, 0, value, trials);
+				return new Decision(Game.Action.BET, betSize, value, trials);
+			default:
+				if (raiseSize == 0)
+					return new Decision(Game.Action.CALL, 0, value, trials);
+				return new Decision(Game.Action.RAISE, raiseSize, value, trials);
+			}
+		}
+
+		if (curBet == 0) {
 			// bet when better than 50% chance of winning
-			if (expectedValue > 0.5 && betSize > 0) {
-				bet(betSize);
+			if (value > 0.5 && betSize > 0) {
+				return new Decision(Game.Action.BET, betSize, value, trials);
 			} else {
 				// negative expectation, but betting as a bluff
-				if (getGame().getRandom().nextFloat() < bluffFrequency)
-					bet(betSize);
+				if (random.nextFloat() < bluffFrequency)
+					return new Decision(Game.Action.BET, betSize, value, trials);
 				else
-					check();
+					return new Decision(Game.Action.CHECK, 0, value, trials);
 			}
 		} else {
 			// PO = bet / (bet + pot)
-			float potOdds = (float) getGame().getCurBet()
-					/ (getGame().getCurBet() + getGame().getPot());
+			float potOdds = (float) curBet / (curBet + pot);
 
 			// positive expectation (EV better than PO)
-			if (expectedValue >= potOdds) {
+			if (value >= potOdds) {
 				// "significantly" better EV to PO..or bluffing
-				if (raiseSize > 0 && (expectedValue > 1.5 * potOdds
-						|| getGame().getRandom().nextFloat() < bluffFrequency)) {
-					raise(raiseSize);
+				if (raiseSize > 0 && (value > 1.5 * potOdds
+						|| random.nextFloat() < bluffFrequency)) {
+					return new Decision(Game.Action.RAISE, raiseSize, value, trials);
 				} else
-					call();
+					return new Decision(Game.Action.CALL, 0, value, trials);
 			} else {
 				// note: either bluff or fold with negative expectation, never flat call
-				if (raiseSize > 0 && getGame().getRandom().nextFloat() < bluffFrequency)
-					raise(raiseSize);
+				if (raiseSize > 0 && random.nextFloat() < bluffFrequency)
+					return new Decision(Game.Action.RAISE, raiseSize, value, trials);
 				else
-					fold();
+					return new Decision(Game.Action.FOLD, 0, value, trials);
 			}
 		}
+	}
+
+	/**
+	 * Pick the move worth the most chips, against the user's range and how
+	 * they are likely to respond
+	 *
+	 * @param state
+	 *            the game when the move was asked for
+	 * @param opponents
+	 *            a copy of the user's range then
+	 * @param checked
+	 *            true if the user had checked this street
+	 * @param minBet
+	 *            smallest bet allowed
+	 * @param deadline
+	 *            {@link System#nanoTime()} to stop drawing runouts by
+	 * @return the move, or null if no hand in the range is left
+	 * @throws InterruptedException
+	 *             if the move was cancelled while searching
+	 */
+	private Decision search(GameState state, OpponentRange opponents,
+			boolean checked, int minBet, long deadline)
+			throws InterruptedException {
+		ExpectimaxSearch search = new ExpectimaxSearch(state.getBotCards(),
+				state.getCommunityCards(), opponents, numSimulations, random,
+				deadline);
+		// the search stops drawing hands once interrupted, and what it found
+		// is no longer wanted
+		if (Thread.interrupted())
+			throw new InterruptedException();
+		ExpectimaxSearch.Choice choice = search.search(state.getPot(),
+				state.getCurBet(), state.getBotChips(), state.getUserChips(),
+				minBet, checked, ExpectimaxSearch.DEFAULT_SIZES);
+		if (choice == null)
+			return null;
+		LOG.fine("search " + choice + " over " + search.size() + " hands");
+		float value;
+		long trials;
+		synchronized (lock) {
+			value = expectedValue;
+			trials = equity == null ? 0 : equity.getTrials();
+		}
+		switch (choice.getAction()) {
+		case BettingTree.FOLD:
+			return new Decision(Game.Action.FOLD, 0, value, trials);
+		case BettingTree.CHECK:
+			return new Decision(Game.Action.CHECK, 0, value, trials);
+		case BettingTree.CALL:
+			return new Decision(Game.Action.CALL, 0, value, trials);
+		case BettingTree.BET:
+			return new Decision(Game.Action.BET, choice.getAmount(), value,
+					trials);
+		default:
+			return new Decision(Game.Action.RAISE, choice.getAmount(), value,
+					trials);
+		}
+	}
+
+	/**
+	 * Make the move and pass the turn on
+	 */
+	private void play(Decision decision) {
+		LOG.fine("bot plays " + decision);
+		advance(decision.getAction());
+		switch (decision.getAction()) {
+		case FOLD:
+			fold();
+			break;
+		case CHECK:
+			check();
+			break;
+		case CALL:
+			call();
+			break;
+		case BET:
+			bet(decision.getAmount());
+			break;
+		case RAISE:
+			raise(decision.getAmount());
+			break;
+		}
 		getGame().setMyTurn(true);
 		getGame().makeNextMove();
 	}
 
+	/**
+	 * @return the move of a decision known to have been chosen
+	 */
+	private static Decision getDecision(Future<Decision> decision) {
+		try {
+			return decision.get();
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
 	/**
 	 * Run simulations do calculate the expected odds of winning the hand The
 	 * ExpectedValue is a float between 0 and 1, with 1 being a guaranteed win.
+	 * Before the flop it is looked up from {@link PreflopEquity} instead.
+	 *
+	 * Simulation stops once it is clear which side of the thresholds in
+	 * choose the value is on.
 	 */
 	public void calculateExpectedValue() {
-		Log.d("POKER", "calculating EV");
-		aiThread = new AIThread();
-		aiThread.start();
+		// whatever was being worked out is for an earlier street
+		cancel();
+		checkedTo = false;
+		if (getGame().getCommunityCards().isEmpty()) {
+			// chance of winning before the flop is always the same for a
+			// starting hand, so there is nothing to simulate until the user
+			// acts
+			range = new OpponentRange();
+			// the player to act first is the strategy's player 0
+			if (strategy != null) {
+				node = strategy.getTree().getRoot();
+				seat = getGame().isMyTurn() ? 1 : 0;
+			}
+			float value = PreflopEquity.getWinProbability(getCards(),
+					OPPONENTS)
+					+ PreflopEquity.getTieProbability(getCards(), OPPONENTS);
+			synchronized (lock) {
+				rangeChanged = false;
+				equity = null;
+				expectedValue = value;
+			}
+		} else {
+			LOG.fine("calculating EV");
+			// until the first round of deals is in, a deadline falls back on
+			// the last street's value
+			synchronized (lock) {
+				equity = null;
+			}
+			submit(new EquityTask(null, getThresholds()));
+		}
 	}
 
-	private class AIThread extends Thread {
+	/**
+	 * A move that is chosen when the calculation finishes or the deadline
+	 * passes, whichever runs it first. Running it again does nothing.
+	 */
+	private class DecisionTask extends FutureTask<Decision> {
+
+		private boolean play;
+
+		DecisionTask(Callable<Decision> choice, boolean play) {
+			super(choice);
+			this.play = play;
+		}
+
+		@Override
+		protected void done() {
+			if (!play || isCancelled())
+				return;
+			final Decision decision = getDecision(this);
+			// the game is only played on its own thread, the listener
+			// shows the move from there
+			getGame().getConfig().getGameThread().execute(new Runnable() {
+				@Override
+				public void run() {
+					synchronized (lock) {
+						// a new card was dealt or the hand ended meanwhile
+						if (pending != DecisionTask.this)
+							return;
+						pending = null;
+						searchTask = null;
+					}
+					play(decision);
+				}
+			});
+		}
+	}
+
+	private class EquityTask implements Runnable, EquitySimulator.Listener {
+
+		// from the game's state when submitted, which a running task can
+		// read while the game moves on
+		private List<Card> holeCards, community;
+		// null while every hand is equally likely
+		private OpponentRange opponents;
+		private Equity prior;
+		private float[] thresholds;
+		private Future<?> future;
+		// set once run has stored its value
+		private boolean finished;
+
+		/**
+		 * @param prior
+		 *            deals simulated so far on this street, or null
+		 * @param thresholds
+		 *            expected values the next move turns on
+		 */
+		EquityTask(Equity prior, float[] thresholds) {
+			this.prior = prior;
+			this.thresholds = thresholds;
+			GameState state = getGame().getState();
+			holeCards = CardSet.toList(state.getBotCards());
+			community = CardSet.toList(state.getCommunityCards());
+			if (!range.isUniform())
+				opponents = new OpponentRange(range);
+		}
 
 		@Override
 		public void run() {
-			// make copies of all cards in play
-			List<Card> deck = new ArrayList<Card>(getGame().getDeck());
-			List<Card> community = new ArrayList<Card>(getGame()
-					.getCommunityCards());
-			List<Card> opponentCards = new ArrayList<Card>(getGame().getUser()
-					.getCards());
-			int communityCardsDealt = community.size();
-
-			int wins = 0;
-			// break if player folds -- ending hand earlier
-			for (int i = 0; i < numSimulations && !getGame().isHandOver(); i++) {
-				Collections.shuffle(deck);
-				while (opponentCards.size() < 2)
-					opponentCards.add(deck.remove(deck.size() - 1));
-				while (community.size() < 5)
-					community.add(deck.remove(deck.size() - 1));
-
-				if (Evaluator.evaluate(getCards(), community) >= Evaluator
-						.evaluate(opponentCards, community))
-					wins++;
-
-				deck.addAll(opponentCards);
-				opponentCards.clear();
-				while (community.size() > communityCardsDealt)
-					deck.add(community.remove(community.size() - 1));
+			EquityCache cache = EquityCache.getInstance();
+			// deals played in this situation before, against the same range,
+			// maybe in an earlier hand
+			Equity start = prior;
+			if (start == null)
+				start = cache.get(holeCards, community, opponents);
+			Equity result;
+			if (start != null && (start.isExact()
+					|| start.getTrials() >= numSimulations
+					|| EquitySimulator.isSettled(start, thresholds))) {
+				result = start;
+			} else if (start == null
+					&& EquityCalculator.countDeals(community.size()) <= exactThreshold) {
+				// few enough deals left to play every one of them out
+				result = EquityCalculator.enumerate(holeCards, community,
+						opponents);
+			} else {
+				try {
+					result = EquitySimulator.simulate(holeCards, community,
+							OPPONENTS, opponents, Sampling.STRATIFIED, start,
+							numSimulations, thresholds, random, this);
+				} catch (InterruptedException e) {
+					// cancelled, the value is no longer wanted
+					return;
+				}
 			}
+			cache.put(holeCards, community, opponents, result);
 
-			expectedValue = (float) wins / numSimulations;
-
-			// If user made move while thread was running,
-			// we need to respond once it is done.
-			synchronized (this) {
-				if (moveQueued) {
-					moveQueued = false;
-					// handler runs on main (UI) thread.
-					// need to handle Toasts and invalidating.
-					handler.post(new Runnable() {
-						@Override
-						public void run() {
-							doBestMove();
-							getGame().getView().invalidate();
-						}
-					});
+			DecisionTask decision;
+			synchronized (lock) {
+				// a task from an earlier street must not overwrite the value
+				if (task != this)
+					return;
+				equity = result;
+				expectedValue = result.getWinOrTieProbability();
+				finished = true;
+				decision = pending;
+				LOG.fine("EV " + expectedValue + " from "
+						+ result.getTrials() + " deals, "
+						+ AIExecutor.getInstance() + ", "
+						+ EquityCache.getInstance());
+			}
+			// If a move was asked for while the task was running,
+			// it needn't wait for its deadline.
+			if (decision != null)
+				decision.run();
+		}
+
+		/**
+		 * Keep the estimate so far, for a deadline that passes first
+		 */
+		@Override
+		public void roundPlayed(Equity played) {
+			synchronized (lock) {
+				if (task == this) {
+					equity = played;
+					expectedValue = played.getWinOrTieProbability();
 				}
 			}
 		}
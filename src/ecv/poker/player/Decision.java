@@ -0,0 +1,54 @@
+package ecv.poker.player;
+
+import ecv.poker.game.Game;
+
+/**
+ * A move chosen by the {@link AIPlayer}, along with what it was based on.
+ */
+public class Decision {
+
+	private final Game.Action action;
+	private final int amount;
+	private final float expectedValue;
+	private final long trials;
+
+	/**
+	 * @param action
+	 *            what to do
+	 * @param amount
+	 *            chips to bet or raise by, 0 for the other actions
+	 * @param expectedValue
+	 *            chance of winning or splitting the move was chosen on
+	 * @param trials
+	 *            deals that chance was found from, 0 if it was looked up
+	 */
+	public Decision(Game.Action action, int amount, float expectedValue,
+			long trials) {
+		this.action = action;
+		this.amount = amount;
+		this.expectedValue = expectedValue;
+		this.trials = trials;
+	}
+
+	public Game.Action getAction() {
+		return action;
+	}
+
+	public int getAmount() {
+		return amount;
+	}
+
+	public float getExpectedValue() {
+		return expectedValue;
+	}
+
+	public long getTrials() {
+		return trials;
+	}
+
+	@Override
+	public String toString() {
+		return action + (amount > 0 ? " " + amount : "") + " on EV "
+				+ expectedValue + " from " + trials + " deals";
+	}
+}
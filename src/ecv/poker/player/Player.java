@@ -3,7 +3,6 @@ package ecv.poker.player;
 import java.util.ArrayList;
 import java.util.List;
 
-import ecv.poker.R;
 import ecv.poker.card.Card;
 import ecv.poker.game.Game;
 
@@ -59,20 +58,18 @@ public class Player {
 	 */
 	public void fold() {
 		cards.clear();
-		game.setAction(Game.Action.FOLD);
 		game.setCurBet(0);
-		String format = game.getView().getContext().getString(R.string.folded);
-		game.getView().toast(String.format(format, name));
+		game.setAction(Game.Action.FOLD);
+		game.getListener().playerActed(this, Game.Action.FOLD, 0);
 	}
 
 	/**
 	 * No action. Nothing to call or bet
 	 */
 	public void check() {
-		game.setAction(Game.Action.CHECK);
 		game.setCurBet(0);
-		String format = game.getView().getContext().getString(R.string.checked);
-		game.getView().toast(String.format(format, name));
+		game.setAction(Game.Action.CHECK);
+		game.getListener().playerActed(this, Game.Action.CHECK, 0);
 	}
 
 	/**
@@ -81,14 +78,12 @@ public class Player {
 	 * @param bet
 	 */
 	public void call() {
-		game.getView().playSound(game.getView().chipSound);
-		chips -= game.getCurBet();
-		game.addToPot(game.getCurBet());
-		game.setAction(Game.Action.CALL);
-		String format = game.getView().getContext().getString(R.string.called);
-		game.getView().toast(String.format(format, name, game.getCurBet()));
+		int called = game.getCurBet();
+		chips -= called;
+		game.addToPot(called);
 		game.setCurBet(0);
-		
+		game.setAction(Game.Action.CALL);
+		game.getListener().playerActed(this, Game.Action.CALL, called);
 	}
 
 	/**
@@ -97,13 +92,11 @@ public class Player {
 	 * @param bet
 	 */
 	public void bet(int bet) {
-		game.getView().playSound(game.getView().chipSound);
 		chips -= bet;
 		game.addToPot(bet);
-		game.setAction(Game.Action.BET);
 		game.setCurBet(bet);
-		String format = game.getView().getContext().getString(R.string.bet);
-		game.getView().toast(String.format(format, name, bet));
+		game.setAction(Game.Action.BET);
+		game.getListener().playerActed(this, Game.Action.BET, bet);
 	}
 
 	/**
@@ -112,15 +105,13 @@ public class Player {
 	 * @param raise
 	 */
 	public void raise(int raise) {
-		game.getView().playSound(game.getView().chipSound);
 		chips -= game.getCurBet();
 		game.addToPot(game.getCurBet());
 		chips -= raise;
 		game.addToPot(raise);
-		game.setAction(Game.Action.RAISE);
 		game.setCurBet(raise);
-		String format = game.getView().getContext().getString(R.string.raised);
-		game.getView().toast(String.format(format, name, raise));
+		game.setAction(Game.Action.RAISE);
+		game.getListener().playerActed(this, Game.Action.RAISE, raise);
 	}
 
 	/**
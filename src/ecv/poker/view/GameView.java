@@ -1,7 +1,8 @@
 package ecv.poker.view;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
 
 import android.app.Dialog;
 import android.content.Context;
@@ -17,6 +18,7 @@ import android.graphics.RectF;
 import android.media.AudioManager;
 import android.media.SoundPool;
 import android.os.AsyncTask;
+import android.os.Handler;
 import android.util.SparseArray;
 import android.view.Gravity;
 import android.view.MotionEvent;
@@ -29,14 +31,41 @@ import ecv.poker.activity.SettingsActivity;
 import ecv.poker.activity.TitleActivity;
 import ecv.poker.card.Card;
 import ecv.poker.game.Game;
+import ecv.poker.game.GameConfig;
+import ecv.poker.game.GameListener;
+import ecv.poker.player.Player;
 
-public class GameView extends View {
+/**
+ * Shows the game and takes the user's moves, and gives the game its
+ * settings and tells the user what happens in it.
+ */
+public class GameView extends View implements GameConfig, GameListener {
 
 	// width:height ratios of bitmaps
 	private static final float BUTTON_RATIO = 412f / 162;
 	private static final float CARD_RATIO = 222f / 284;
 	// padding between cards and buttons
 	private static final int PADDING = 10;
+	// drawable of each card, in order of Card.getIndex()
+	private static final int[] CARD_DRAWABLES = {
+			R.drawable.card102, R.drawable.card103, R.drawable.card104,
+			R.drawable.card105, R.drawable.card106, R.drawable.card107,
+			R.drawable.card108, R.drawable.card109, R.drawable.card110,
+			R.drawable.card111, R.drawable.card112, R.drawable.card113,
+			R.drawable.card114, R.drawable.card202, R.drawable.card203,
+			R.drawable.card204, R.drawable.card205, R.drawable.card206,
+			R.drawable.card207, R.drawable.card208, R.drawable.card209,
+			R.drawable.card210, R.drawable.card211, R.drawable.card212,
+			R.drawable.card213, R.drawable.card214, R.drawable.card302,
+			R.drawable.card303, R.drawable.card304, R.drawable.card305,
+			R.drawable.card306, R.drawable.card307, R.drawable.card308,
+			R.drawable.card309, R.drawable.card310, R.drawable.card311,
+			R.drawable.card312, R.drawable.card313, R.drawable.card314,
+			R.drawable.card402, R.drawable.card403, R.drawable.card404,
+			R.drawable.card405, R.drawable.card406, R.drawable.card407,
+			R.drawable.card408, R.drawable.card409, R.drawable.card410,
+			R.drawable.card411, R.drawable.card412, R.drawable.card413,
+			R.drawable.card414 };
 
 	private Context context;
 	private MyButton foldButton, checkButton, callButton, betButton,
@@ -57,7 +86,9 @@ public class GameView extends View {
 	private AudioManager audioManager;
 	private boolean audioEnabled;
 	private SharedPreferences settings;
-	public int shuffleSound, dealSound, chipSound;
+	private int shuffleSound, dealSound, chipSound;
+	// runs the bot's moves on the UI thread
+	private Executor gameThread;
 
 	public GameView(Context context) {
 		super(context);
@@ -99,7 +130,14 @@ public class GameView extends View {
 		slider.setMaxVal(100);
 
 		table = new RectF();
-		game = new Game(this);
+		final Handler handler = new Handler();
+		gameThread = new Executor() {
+			@Override
+			public void execute(Runnable task) {
+				handler.post(task);
+			}
+		};
+		game = new Game(this, this);
 	}
 
 	@Override
@@ -160,16 +198,8 @@ public class GameView extends View {
 		// Load bitmaps asynchronously on a background thread
 		MyBitmap[] bmpsToLoad = new MyBitmap[63];
 		int i = 0;
-		List<Card> cards = new ArrayList<Card>(game.getDeck());
-		cards.addAll(game.getBot().getCards());
-		cards.addAll(game.getUser().getCards());
-		cards.addAll(game.getCommunityCards());
-		for (Card c : cards) {
-			int resId = getResources().getIdentifier("card" + c.getId(),
-					"drawable", "ecv.poker");
-			c.setResId(resId);
+		for (int resId : CARD_DRAWABLES)
 			bmpsToLoad[i++] = new MyBitmap(resId, cardW, cardH);
-		}
 		bmpsToLoad[i++] = new MyBitmap(R.drawable.card_back, cardW, cardH);
 		bmpsToLoad[i++] = new MyBitmap(R.drawable.bet_button_down, buttonW,
 				buttonH);
@@ -213,16 +243,16 @@ public class GameView extends View {
 				int cardResId = R.drawable.card_back;
 				// show the user the bot's cards at the end of the hand.
 				if (game.isHandOver())
-					cardResId = game.getBot().getCards().get(i).getResId();
+					cardResId = getDrawable(game.getBot().getCards().get(i));
 				drawBitmap(canvas, cardResId, compCardsX - i
 						* (cardW + PADDING), compCardsY);
 			}
 			for (int i = 0; i < game.getUser().getCards().size(); i++) {
-				drawBitmap(canvas, game.getUser().getCards().get(i).getResId(),
+				drawBitmap(canvas, getDrawable(game.getUser().getCards().get(i)),
 						playerCardsX + i * (cardW + PADDING), playerCardsY);
 			}
 			for (int i = 0; i < game.getCommunityCards().size(); i++) {
-				drawBitmap(canvas, game.getCommunityCards().get(i).getResId(),
+				drawBitmap(canvas, getDrawable(game.getCommunityCards().get(i)),
 						communityX + i * (cardW + PADDING), communityY);
 			}
 
@@ -280,8 +310,80 @@ public class GameView extends View {
 		}
 	}
 	
-	public SharedPreferences getSettings() {
-		return settings;
+	@Override
+	public int getInt(String key, int defValue) {
+		return settings.getInt(key, defValue);
+	}
+
+	@Override
+	public String getUserName() {
+		return context.getString(R.string.you);
+	}
+
+	@Override
+	public String getBotName() {
+		return context.getString(R.string.computer);
+	}
+
+	@Override
+	public InputStream openAsset(String name) throws IOException {
+		return context.getAssets().open(name);
+	}
+
+	@Override
+	public Executor getGameThread() {
+		return gameThread;
+	}
+
+	@Override
+	public void handStarted() {
+		playSound(shuffleSound);
+	}
+
+	@Override
+	public void cardsDealt() {
+		playSound(dealSound);
+	}
+
+	@Override
+	public void playerActed(Player player, Game.Action action, int amount) {
+		int format;
+		switch (action) {
+		case FOLD:
+			format = R.string.folded;
+			break;
+		case CHECK:
+			format = R.string.checked;
+			break;
+		case CALL:
+			format = R.string.called;
+			break;
+		case BET:
+			format = R.string.bet;
+			break;
+		default:
+			format = R.string.raised;
+			break;
+		}
+		if (amount > 0)
+			playSound(chipSound);
+		toast(String.format(context.getString(format), player.getName(),
+				amount));
+		invalidate();
+	}
+
+	@Override
+	public void potAwarded(Player winner, int pot) {
+		if (winner == null)
+			toast(context.getString(R.string.split_pot));
+		else
+			toast(String.format(context.getString(R.string.award_chips),
+					winner.getName(), pot));
+	}
+
+	@Override
+	public void gameOver() {
+		makeEndGameDialog();
 	}
 
 	public boolean onTouchEvent(MotionEvent evt) {
@@ -344,13 +446,13 @@ public class GameView extends View {
 		slider.setCurX(slider.getStartX());
 	}
 
-	public void toast(String msg) {
+	private void toast(String msg) {
 		Toast toast = Toast.makeText(context, msg, Toast.LENGTH_SHORT);
 		toast.setGravity(Gravity.CENTER, 0, 0);
 		toast.show();
 	}
 
-	public void playSound(int id) {
+	private void playSound(int id) {
 		if (audioEnabled) {
 			float volume = audioManager
 					.getStreamVolume(AudioManager.STREAM_MUSIC);
@@ -358,6 +460,10 @@ public class GameView extends View {
 		}
 	}
 
+	private static int getDrawable(Card card) {
+		return CARD_DRAWABLES[card.getIndex()];
+	}
+
 	// look up the ID in the sparsearray (hashmap) and draw it if found
 	private void drawBitmap(Canvas canvas, int resId, int x, int y) {
 		Bitmap bmp = bitmaps.get(resId);
@@ -365,7 +471,7 @@ public class GameView extends View {
 			canvas.drawBitmap(bmp, x, y, null);
 	}
 
-	public void makeEndGameDialog() {
+	private void makeEndGameDialog() {
 		final Dialog dialog = new Dialog(context);
 		dialog.requestWindowFeature(Window.FEATURE_NO_TITLE);
 		dialog.setContentView(R.layout.endhand_dialog);